@@ -0,0 +1,35 @@
+import java.util.function.Supplier;
+
+// Builds a graph and an engine for the JMH benchmarks. JMH refuses benchmark classes in the
+// default package, and named packages cannot reference the default-package MST classes, so
+// bench.MSTBenchmark loads this class by name and only sees the JDK Supplier interface.
+public class MSTBenchmarkFixture {
+
+    public static Supplier<Object> create(String engine, String family, int vertexCount, double density,
+                                          int maxWeight) {
+        // Same generators as the datasets, with a fixed seed per parameter set; density only
+        // applies to the random family
+        long targetEdges = (long) ((long) vertexCount * (vertexCount - 1) / 2 * density);
+        CompactGraph graph = GraphGenerator.generate(GraphGenerator.Family.fromName(family), 1, vertexCount,
+                targetEdges, 4, GraphGenerator.WeightDistribution.UNIFORM, maxWeight, 42, 1).toCompactGraph();
+        MSTAlgorithm algorithm = createEngine(engine);
+        return () -> algorithm.findMST(graph);
+    }
+
+    private static MSTAlgorithm createEngine(String engine) {
+        switch (engine) {
+            case "Prim":
+                return new PrimMST();
+            case "DensePrim":
+                return new DensePrimMST();
+            case "Kruskal":
+                return new KruskalMST(KruskalMST.SortStrategy.FULL);
+            case "FilterKruskal":
+                return new KruskalMST(KruskalMST.SortStrategy.FILTER);
+            case "Boruvka":
+                return new BoruvkaMST();
+            default:
+                throw new IllegalArgumentException("Unknown engine: " + engine);
+        }
+    }
+}
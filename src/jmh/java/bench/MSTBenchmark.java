@@ -0,0 +1,47 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.*;
+
+// JMH benchmarks for every MST engine over generated graphs.
+// Run with: mvn -Pbenchmark compile exec:exec  (add -Djmh.args="..." to override JMH options)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MSTBenchmark {
+    @Param({"Prim", "DensePrim", "Kruskal", "FilterKruskal", "Boruvka"})
+    public String engine;
+
+    // Other families: grid, geometric, power-law, complete, near-tree (e.g. -p family=grid,power-law)
+    @Param({"random"})
+    public String family;
+
+    @Param({"500", "2000"})
+    public int vertexCount;
+
+    @Param({"0.05", "0.3", "0.7"})
+    public double density;
+
+    @Param({"100", "1000000"})
+    public int maxWeight;
+
+    private Supplier<Object> solve;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws ReflectiveOperationException {
+        Class<?> fixture = Class.forName("MSTBenchmarkFixture");
+        solve = (Supplier<Object>) fixture
+                .getMethod("create", String.class, String.class, int.class, double.class, int.class)
+                .invoke(null, engine, family, vertexCount, density, maxWeight);
+    }
+
+    @Benchmark
+    public Object solve() {
+        return solve.get();
+    }
+}
@@ -0,0 +1,42 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+// Layout of the binary graph container. All values are little-endian.
+//
+//   header  : int magic, int version, int graphCount, int reserved, long indexOffset
+//   graphs  : one block per graph, each starting on a 4-byte boundary
+//             int id, int vertexCount, int edgeCount, int nameBytes,
+//             int[vertexCount + 1] name offsets, byte[nameBytes] UTF-8 names (padded to 4),
+//             int[edgeCount] from, int[edgeCount] to, int[edgeCount] weight
+//   index   : graphCount entries of int id, int reserved, long blockOffset, long blockLength
+//
+// The index sits at the end so graphs can be written as they are produced; the header
+// is patched with its position on close.
+public final class BinaryGraphFile {
+    public static final String EXTENSION = ".bin";
+    public static final int MAGIC = 0x4753544D; // "MSTG"
+    public static final int VERSION = 1;
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int HEADER_BYTES = 24;
+    public static final int INDEX_ENTRY_BYTES = 24;
+    public static final int BLOCK_HEADER_BYTES = 16;
+
+    private BinaryGraphFile() {}
+
+    // Converts an InputData JSON file to the binary format, one graph at a time
+    public static int convert(String jsonPath, String binaryPath) throws IOException {
+        try (GraphStreamReader graphs = JsonUtils.streamGraphs(jsonPath);
+             BinaryGraphWriter writer = new BinaryGraphWriter(new File(binaryPath))) {
+            while (graphs.hasNext()) {
+                writer.write(graphs.next());
+            }
+            return writer.getGraphCount();
+        }
+    }
+
+    static int padToInt(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+}
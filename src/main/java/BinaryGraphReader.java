@@ -0,0 +1,232 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Opens a binary graph file (see BinaryGraphFile) through memory mapping. The index is read
+// once; each graph block is mapped on demand, so graph N is loaded without touching the rest.
+// readGraph is not zero-copy: CompactGraph owns plain int arrays, so the edge arrays are bulk-copied
+// out of the mapping onto the heap. streamGraph never builds them and holds only the names.
+// Vertex ids are checked against the vertex count, so a corrupt file fails with an IOException.
+// Also usable as a GraphSource that walks the graphs in file order.
+public class BinaryGraphReader implements GraphSource {
+    // Edges per chunk when streaming a graph's edge arrays
+    private static final int STREAM_CHUNK_EDGES = 1 << 14;
+
+    private final File file;
+    private final FileChannel channel;
+    private final int[] ids;
+    private final long[] offsets;
+    private final long[] lengths;
+    private final Map<Integer, Integer> positionById = new HashMap<>();
+    private int cursor;
+
+    public BinaryGraphReader(File file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = map(0, BinaryGraphFile.HEADER_BYTES);
+            if (header.getInt() != BinaryGraphFile.MAGIC) {
+                throw new IOException("Not a binary graph file: " + file);
+            }
+            int version = header.getInt();
+            if (version != BinaryGraphFile.VERSION) {
+                throw new IOException("Unsupported binary graph version " + version + " in " + file);
+            }
+            int graphCount = header.getInt();
+            header.getInt();
+            long indexOffset = header.getLong();
+
+            ids = new int[graphCount];
+            offsets = new long[graphCount];
+            lengths = new long[graphCount];
+            ByteBuffer index = map(indexOffset, (long) graphCount * BinaryGraphFile.INDEX_ENTRY_BYTES);
+            for (int i = 0; i < graphCount; i++) {
+                ids[i] = index.getInt();
+                index.getInt();
+                offsets[i] = index.getLong();
+                lengths[i] = index.getLong();
+                positionById.putIfAbsent(ids[i], i);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getGraphCount() { return ids.length; }
+    public int getGraphId(int position) { return ids[position]; }
+
+    public boolean containsGraph(int id) {
+        return positionById.containsKey(id);
+    }
+
+    // Random access by graph id
+    public CompactGraph readGraphById(int id) throws IOException {
+        Integer position = positionById.get(id);
+        if (position == null) {
+            throw new NoSuchElementException("No graph with id " + id);
+        }
+        return readGraph(position);
+    }
+
+    // Random access by position in the file
+    public CompactGraph readGraph(int position) throws IOException {
+        ByteBuffer block = map(offsets[position], lengths[position]);
+        int id = block.getInt();
+        int vertexCount = block.getInt();
+        int edgeCount = block.getInt();
+        int nameBytes = block.getInt();
+        checkBlock(position, id, vertexCount, edgeCount, nameBytes);
+        String[] names = readNames(block, vertexCount, nameBytes);
+
+        // Bulk copies out of the mapping onto the heap
+        IntBuffer edges = block.asIntBuffer();
+        int[] from = new int[edgeCount];
+        int[] to = new int[edgeCount];
+        int[] weight = new int[edgeCount];
+        edges.get(from);
+        edges.get(to);
+        edges.get(weight);
+        for (int e = 0; e < edgeCount; e++) {
+            checkVertex(from[e], vertexCount, id);
+            checkVertex(to[e], vertexCount, id);
+        }
+
+        return new CompactGraph(id, names, from, to, weight);
+    }
+
+    // Streams one graph's edges from the file in fixed-size chunks, so only the vertex names are
+    // held in memory; unlike readGraph this also works for blocks past the 2 GB mapping limit
+    public EdgeStream streamGraph(int position) throws IOException {
+        ByteBuffer header = map(offsets[position], BinaryGraphFile.BLOCK_HEADER_BYTES);
+        int id = header.getInt();
+        int vertexCount = header.getInt();
+        int edgeCount = header.getInt();
+        int nameBytes = header.getInt();
+        checkBlock(position, id, vertexCount, edgeCount, nameBytes);
+
+        long namesOffset = offsets[position] + BinaryGraphFile.BLOCK_HEADER_BYTES;
+        long namesLength = 4L * (vertexCount + 1) + BinaryGraphFile.padToInt(nameBytes);
+        String[] names = readNames(map(namesOffset, namesLength), vertexCount, nameBytes);
+        long fromOffset = namesOffset + namesLength;
+        long toOffset = fromOffset + 4L * edgeCount;
+        long weightOffset = toOffset + 4L * edgeCount;
+
+        return new EdgeStream() {
+            @Override
+            public int getId() { return id; }
+            @Override
+            public int getVertexCount() { return vertexCount; }
+            @Override
+            public long getEdgeCount() { return edgeCount; }
+            @Override
+            public String getVertexName(int vertex) { return names[vertex]; }
+
+            @Override
+            public void forEachEdge(EdgeVisitor visitor) throws IOException {
+                ByteBuffer from = chunkBuffer();
+                ByteBuffer to = chunkBuffer();
+                ByteBuffer weight = chunkBuffer();
+                for (int start = 0; start < edgeCount; start += STREAM_CHUNK_EDGES) {
+                    int chunk = Math.min(STREAM_CHUNK_EDGES, edgeCount - start);
+                    readFully(from, fromOffset + 4L * start, chunk);
+                    readFully(to, toOffset + 4L * start, chunk);
+                    readFully(weight, weightOffset + 4L * start, chunk);
+                    for (int i = 0; i < chunk; i++) {
+                        int u = checkVertex(from.getInt(), vertexCount, id);
+                        int v = checkVertex(to.getInt(), vertexCount, id);
+                        visitor.accept(u, v, weight.getInt());
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean hasNext() {
+        return cursor < ids.length;
+    }
+
+    @Override
+    public CompactGraph next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            return readGraph(cursor++);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Rejects counts that are negative or do not fit in the block the index gives
+    private void checkBlock(int position, int id, int vertexCount, int edgeCount, int nameBytes) throws IOException {
+        long needed = BinaryGraphFile.BLOCK_HEADER_BYTES + 4L * (vertexCount + 1)
+                + BinaryGraphFile.padToInt(nameBytes) + 12L * edgeCount;
+        if (vertexCount < 0 || edgeCount < 0 || nameBytes < 0 || needed > lengths[position]) {
+            throw new IOException("Graph " + id + " in " + file + " is truncated or corrupt");
+        }
+    }
+
+    private int checkVertex(int vertex, int vertexCount, int id) throws IOException {
+        if (vertex < 0 || vertex >= vertexCount) {
+            throw new IOException("Graph " + id + " in " + file + " has an edge endpoint " + vertex
+                    + " outside 0.." + (vertexCount - 1));
+        }
+        return vertex;
+    }
+
+    // Decodes the name offsets and UTF-8 names at the block's position, leaving it after the padding
+    private static String[] readNames(ByteBuffer block, int vertexCount, int nameBytes) {
+        int[] nameOffsets = new int[vertexCount + 1];
+        block.asIntBuffer().get(nameOffsets);
+        block.position(block.position() + 4 * (vertexCount + 1));
+
+        String[] names = new String[vertexCount];
+        int nameStart = block.position();
+        for (int v = 0; v < vertexCount; v++) {
+            ByteBuffer name = block.duplicate();
+            name.position(nameStart + nameOffsets[v]).limit(nameStart + nameOffsets[v + 1]);
+            names[v] = StandardCharsets.UTF_8.decode(name).toString();
+        }
+        block.position(nameStart + BinaryGraphFile.padToInt(nameBytes));
+        return names;
+    }
+
+    private static ByteBuffer chunkBuffer() {
+        return ByteBuffer.allocateDirect(4 * STREAM_CHUNK_EDGES).order(BinaryGraphFile.BYTE_ORDER);
+    }
+
+    // Reads count ints starting at the file offset into buffer and flips it for reading
+    private void readFully(ByteBuffer buffer, long offset, int count) throws IOException {
+        buffer.clear().limit(4 * count);
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of binary graph file at offset " + (offset + buffer.position()));
+            }
+        }
+        buffer.flip();
+    }
+
+    private MappedByteBuffer map(long offset, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Graph block of " + length + " bytes exceeds the 2 GB mapping limit");
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        buffer.order(BinaryGraphFile.BYTE_ORDER);
+        return buffer;
+    }
+}
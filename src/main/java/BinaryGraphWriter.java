@@ -0,0 +1,136 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+// Appends graphs to a binary graph file (see BinaryGraphFile for the layout).
+// Writes go through one fixed-size buffer, so memory use does not depend on graph size.
+public class BinaryGraphWriter implements Closeable {
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(BinaryGraphFile.BYTE_ORDER);
+    private final IntList indexIds = new IntList();
+    private final LongList indexOffsets = new LongList();
+    private final LongList indexLengths = new LongList();
+    private long position;
+
+    public BinaryGraphWriter(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        // Placeholder header, patched on close
+        for (int i = 0; i < BinaryGraphFile.HEADER_BYTES / 4; i++) {
+            putInt(0);
+        }
+    }
+
+    public void write(CompactGraph graph) throws IOException {
+        write(graph.getId(), graph.getVertexCount(), graph::getVertexName, graph.getEdgeCount(),
+                graph::getEdgeFrom, graph::getEdgeTo, graph::getEdgeWeight);
+    }
+
+    // Writes a graph straight from accessors, e.g. generator arrays, without building a CompactGraph.
+    // Names are encoded twice (once to size the block) rather than held in memory.
+    public void write(int id, int vertexCount, IntFunction<String> vertexName, int edgeCount,
+                      IntUnaryOperator edgeFrom, IntUnaryOperator edgeTo, IntUnaryOperator edgeWeight)
+            throws IOException {
+        long nameBytes = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            nameBytes += vertexName.apply(v).getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (nameBytes > Integer.MAX_VALUE) {
+            throw new IOException("Vertex names of graph " + id + " exceed 2 GB");
+        }
+
+        long start = position;
+        putInt(id);
+        putInt(vertexCount);
+        putInt(edgeCount);
+        putInt((int) nameBytes);
+
+        int nameOffset = 0;
+        putInt(nameOffset);
+        for (int v = 0; v < vertexCount; v++) {
+            nameOffset += vertexName.apply(v).getBytes(StandardCharsets.UTF_8).length;
+            putInt(nameOffset);
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            putBytes(vertexName.apply(v).getBytes(StandardCharsets.UTF_8));
+        }
+        for (int pad = BinaryGraphFile.padToInt((int) nameBytes) - (int) nameBytes; pad > 0; pad--) {
+            putByte((byte) 0);
+        }
+
+        for (int e = 0; e < edgeCount; e++) putInt(edgeFrom.applyAsInt(e));
+        for (int e = 0; e < edgeCount; e++) putInt(edgeTo.applyAsInt(e));
+        for (int e = 0; e < edgeCount; e++) putInt(edgeWeight.applyAsInt(e));
+
+        indexIds.add(id);
+        indexOffsets.add(start);
+        indexLengths.add(position - start);
+    }
+
+    public int getGraphCount() { return indexIds.size(); }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            long indexOffset = position;
+            for (int i = 0; i < indexIds.size(); i++) {
+                putInt(indexIds.get(i));
+                putInt(0);
+                putLong(indexOffsets.get(i));
+                putLong(indexLengths.get(i));
+            }
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryGraphFile.HEADER_BYTES).order(BinaryGraphFile.BYTE_ORDER);
+            header.putInt(BinaryGraphFile.MAGIC);
+            header.putInt(BinaryGraphFile.VERSION);
+            header.putInt(indexIds.size());
+            header.putInt(0);
+            header.putLong(indexOffset);
+            header.flip();
+            channel.write(header, 0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void putInt(int value) throws IOException {
+        if (buffer.remaining() < 4) flush();
+        buffer.putInt(value);
+        position += 4;
+    }
+
+    private void putLong(long value) throws IOException {
+        if (buffer.remaining() < 8) flush();
+        buffer.putLong(value);
+        position += 8;
+    }
+
+    private void putByte(byte value) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(value);
+        position++;
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        for (byte b : bytes) {
+            putByte(b);
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,150 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Parallel Boruvka: each round finds the cheapest outgoing edge of every component
+// in parallel, contracts along those edges, and relabels vertices in parallel.
+// Ties are broken by edge id so the chosen edges never form a cycle.
+public class BoruvkaMST implements MSTAlgorithm {
+    // Below this many items a task runs sequentially instead of splitting
+    private static final int SEQUENTIAL_THRESHOLD = 4096;
+    private static final long NO_EDGE = Long.MAX_VALUE;
+
+    private final ForkJoinPool pool;
+
+    public BoruvkaMST() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BoruvkaMST(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() { return "Boruvka"; }
+
+    @Override
+    public MSTResult findMST(CompactGraph graph, MSTScratch scratch) {
+        long startTime = System.nanoTime();
+        MSTMetrics metrics = new MSTMetrics();
+        long loopStart = MSTMetrics.now();
+
+        List<Edge> mstEdges = new ArrayList<>();
+        int totalCost = 0;
+        int vertexCount = graph.getVertexCount();
+        int edgeCount = graph.getEdgeCount();
+
+        // component[v] is the representative of v's current component
+        int[] component = scratch.ints(0, vertexCount);
+        int[] representatives = scratch.ints(1, vertexCount);
+        int[] newLabel = scratch.ints(2, vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            component[v] = v;
+            representatives[v] = v;
+        }
+        AtomicLongArray cheapest = scratch.atomicLongs(vertexCount);
+        int representativeCount = vertexCount;
+        DisjointSet uf = scratch.disjointSet(vertexCount);
+        // Summed per range so workers do not contend on every edge
+        LongAdder comparisons = new LongAdder();
+
+        while (representativeCount > 1 && mstEdges.size() < vertexCount - 1) {
+            for (int i = 0; i < representativeCount; i++) {
+                cheapest.set(representatives[i], NO_EDGE);
+            }
+
+            // Cheapest outgoing edge per component, packed as (weight, edge id)
+            pool.invoke(new RangeTask(0, edgeCount, (from, to) -> {
+                long compared = 0;
+                for (int e = from; e < to; e++) {
+                    int cu = component[graph.getEdgeFrom(e)];
+                    int cv = component[graph.getEdgeTo(e)];
+                    if (MSTMetrics.ENABLED) compared++;
+                    if (cu == cv) continue;
+                    long key = ((long) graph.getEdgeWeight(e) << 32) | e;
+                    updateMin(cheapest, cu, key);
+                    updateMin(cheapest, cv, key);
+                    if (MSTMetrics.ENABLED) compared += 2;
+                }
+                if (MSTMetrics.ENABLED) comparisons.add(compared);
+            }));
+
+            // Contract along the chosen edges
+            boolean merged = false;
+            for (int i = 0; i < representativeCount; i++) {
+                long key = cheapest.get(representatives[i]);
+                if (key == NO_EDGE) continue;
+                int edge = (int) key;
+                if (uf.union(graph.getEdgeFrom(edge), graph.getEdgeTo(edge))) {
+                    mstEdges.add(graph.toEdge(edge));
+                    totalCost += graph.getEdgeWeight(edge);
+                    merged = true;
+                }
+            }
+            if (!merged) break;
+
+            // Resolve new representatives sequentially so the parallel relabel only reads
+            int count = 0;
+            for (int i = 0; i < representativeCount; i++) {
+                int rep = representatives[i];
+                int root = uf.find(rep);
+                newLabel[rep] = root;
+                if (root == rep) {
+                    representatives[count++] = rep;
+                }
+            }
+            representativeCount = count;
+
+            pool.invoke(new RangeTask(0, vertexCount, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    component[v] = newLabel[component[v]];
+                }
+            }));
+        }
+
+        metrics.addMainLoopNanos(MSTMetrics.now() - loopStart);
+        metrics.addComparisons(comparisons.sum());
+        metrics.add(uf);
+        Map<String, Long> stats = metrics.addTo(new LinkedHashMap<>());
+        long executionTimeNanos = System.nanoTime() - startTime;
+        return new MSTResult(mstEdges, totalCost, metrics.operations(), executionTimeNanos, stats);
+    }
+
+    private static void updateMin(AtomicLongArray cheapest, int index, long key) {
+        long current = cheapest.get(index);
+        while (key < current && !cheapest.compareAndSet(index, current, key)) {
+            current = cheapest.get(index);
+        }
+    }
+
+    private interface RangeBody {
+        void run(int from, int to);
+    }
+
+    // Splits [from, to) in halves until it is small enough to run directly
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final RangeBody body;
+
+        RangeTask(int from, int to, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid, body), new RangeTask(mid, to, body));
+        }
+    }
+}
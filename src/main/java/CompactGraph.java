@@ -0,0 +1,123 @@
+import java.util.*;
+
+// Compressed sparse row (CSR) view of a graph with vertices interned to dense int ids.
+// Each undirected edge is stored once in the edge arrays and twice in the adjacency arrays.
+public class CompactGraph {
+    private final int id;
+    private final String[] names;
+
+    // Undirected edge list, indexed by edge id
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] edgeWeight;
+
+    // Adjacency of vertex v is the slot range [offsets[v], offsets[v + 1])
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] edgeIds;
+    // Time spent building the adjacency arrays, for phase reporting
+    private final long adjacencyBuildNanos;
+
+    public CompactGraph(int id, String[] names, int[] edgeFrom, int[] edgeTo, int[] edgeWeight) {
+        if (edgeFrom.length != edgeTo.length || edgeFrom.length != edgeWeight.length) {
+            throw new IllegalArgumentException("Edge arrays must have equal length");
+        }
+        this.id = id;
+        this.names = names;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeWeight = edgeWeight;
+
+        int vertexCount = names.length;
+        int edgeCount = edgeFrom.length;
+
+        long buildStart = System.nanoTime();
+        // Count degrees, then prefix-sum into offsets
+        offsets = new int[vertexCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            offsets[edgeFrom[e] + 1]++;
+            offsets[edgeTo[e] + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        targets = new int[2 * edgeCount];
+        weights = new int[2 * edgeCount];
+        edgeIds = new int[2 * edgeCount];
+        int[] next = Arrays.copyOf(offsets, vertexCount);
+        for (int e = 0; e < edgeCount; e++) {
+            int u = edgeFrom[e];
+            int v = edgeTo[e];
+            int w = edgeWeight[e];
+
+            int slot = next[u]++;
+            targets[slot] = v;
+            weights[slot] = w;
+            edgeIds[slot] = e;
+
+            slot = next[v]++;
+            targets[slot] = u;
+            weights[slot] = w;
+            edgeIds[slot] = e;
+        }
+        adjacencyBuildNanos = System.nanoTime() - buildStart;
+    }
+
+    // One-time conversion from the object-based representation
+    public static CompactGraph fromGraph(Graph graph) {
+        List<String> vertices = graph.getVertices();
+        Map<String, Integer> index = new HashMap<>(vertices.size() * 2);
+        String[] names = new String[vertices.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = vertices.get(i);
+            if (index.putIfAbsent(names[i], i) != null) {
+                throw new IllegalArgumentException("Duplicate vertex " + names[i] + " in graph " + graph.getId());
+            }
+        }
+
+        List<Edge> edges = graph.getEdges();
+        int[] from = new int[edges.size()];
+        int[] to = new int[edges.size()];
+        int[] weight = new int[edges.size()];
+        for (int e = 0; e < edges.size(); e++) {
+            Edge edge = edges.get(e);
+            from[e] = lookup(index, edge.getFrom(), graph.getId());
+            to[e] = lookup(index, edge.getTo(), graph.getId());
+            weight[e] = edge.getWeight();
+        }
+
+        return new CompactGraph(graph.getId(), names, from, to, weight);
+    }
+
+    private static int lookup(Map<String, Integer> index, String name, int graphId) {
+        Integer vertex = index.get(name);
+        if (vertex == null) {
+            throw new IllegalArgumentException("Edge references unknown vertex " + name + " in graph " + graphId);
+        }
+        return vertex;
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public int getVertexCount() { return names.length; }
+    public int getEdgeCount() { return edgeFrom.length; }
+    public String getVertexName(int vertex) { return names[vertex]; }
+    public long getAdjacencyBuildNanos() { return adjacencyBuildNanos; }
+
+    public int getEdgeFrom(int edge) { return edgeFrom[edge]; }
+    public int getEdgeTo(int edge) { return edgeTo[edge]; }
+    public int getEdgeWeight(int edge) { return edgeWeight[edge]; }
+
+    // Raw CSR arrays; callers must not modify them
+    public int[] getOffsets() { return offsets; }
+    public int[] getTargets() { return targets; }
+    public int[] getWeights() { return weights; }
+    public int[] getEdgeIds() { return edgeIds; }
+
+    // Materialise edge e as an Edge in its original orientation
+    public Edge toEdge(int edge) {
+        return new Edge(names[edgeFrom[edge]], names[edgeTo[edge]], edgeWeight[edge]);
+    }
+}
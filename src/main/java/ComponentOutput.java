@@ -0,0 +1,33 @@
+import java.util.List;
+
+public class ComponentOutput {
+    private int component_id;
+    private int vertex_count;
+    private String algorithm;
+    private List<EdgeOutput> mst_edges;
+    private int total_cost;
+
+    public ComponentOutput(int component_id, int vertex_count, String algorithm, List<EdgeOutput> mst_edges, int total_cost) {
+        this.component_id = component_id;
+        this.vertex_count = vertex_count;
+        this.algorithm = algorithm;
+        this.mst_edges = mst_edges;
+        this.total_cost = total_cost;
+    }
+
+    // Getters and setters
+    public int getComponent_id() { return component_id; }
+    public void setComponent_id(int component_id) { this.component_id = component_id; }
+
+    public int getVertex_count() { return vertex_count; }
+    public void setVertex_count(int vertex_count) { this.vertex_count = vertex_count; }
+
+    public String getAlgorithm() { return algorithm; }
+    public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+
+    public List<EdgeOutput> getMst_edges() { return mst_edges; }
+    public void setMst_edges(List<EdgeOutput> mst_edges) { this.mst_edges = mst_edges; }
+
+    public int getTotal_cost() { return total_cost; }
+    public void setTotal_cost(int total_cost) { this.total_cost = total_cost; }
+}
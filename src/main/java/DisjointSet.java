@@ -0,0 +1,77 @@
+// Union-Find over dense int ids with union by size and iterative path halving.
+// Operations allocate nothing; reset() lets one instance be reused across graphs.
+public class DisjointSet {
+    private int[] parent;
+    private int[] size;
+    private int count;
+    private int setCount;
+    // Event counters for MSTMetrics, cleared by reset()
+    private long findCount;
+    private long unionCount;
+    private long pathCompressionSteps;
+
+    public DisjointSet(int count) {
+        parent = new int[count];
+        size = new int[count];
+        reset(count);
+    }
+
+    // Reinitialise to count singleton sets, growing the arrays only if needed
+    public void reset(int count) {
+        if (count > parent.length) {
+            parent = new int[count];
+            size = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+            size[i] = 1;
+        }
+        this.count = count;
+        this.setCount = count;
+        findCount = 0;
+        unionCount = 0;
+        pathCompressionSteps = 0;
+    }
+
+    public int find(int x) {
+        if (MSTMetrics.ENABLED) findCount++;
+        while (parent[x] != x) {
+            if (MSTMetrics.ENABLED) pathCompressionSteps++;
+            // Path halving: point x at its grandparent and skip ahead
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // Returns false if x and y were already in the same set
+    public boolean union(int x, int y) {
+        int rootX = find(x);
+        int rootY = find(y);
+
+        if (rootX == rootY) return false;
+
+        if (size[rootX] < size[rootY]) {
+            int tmp = rootX;
+            rootX = rootY;
+            rootY = tmp;
+        }
+        parent[rootY] = rootX;
+        size[rootX] += size[rootY];
+        setCount--;
+        if (MSTMetrics.ENABLED) unionCount++;
+        return true;
+    }
+
+    public boolean connected(int x, int y) {
+        return find(x) == find(y);
+    }
+
+    // Getters
+    public int getCount() { return count; }
+    public int getSetCount() { return setCount; }
+    public int getSetSize(int x) { return size[find(x)]; }
+    public long getFindCount() { return findCount; }
+    public long getUnionCount() { return unionCount; }
+    public long getPathCompressionSteps() { return pathCompressionSteps; }
+}
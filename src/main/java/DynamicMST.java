@@ -0,0 +1,411 @@
+import java.util.*;
+
+// Keeps a minimum spanning forest up to date while edges are inserted, deleted or re-weighted.
+// Inserts use the cycle property: a new edge replaces the heaviest edge on the tree path between
+// its endpoints when it is lighter. Deleting a tree edge uses the cut property: both halves are
+// searched in lockstep until the smaller one is complete, and only edges incident to that half are
+// scanned for the cheapest reconnecting edge. No update sorts or touches the whole edge set.
+public class DynamicMST {
+    public static final String STAT_UPDATES = "updates";
+
+    private static final int DELETED = 0;
+    private static final int NON_TREE = 1;
+    private static final int TREE = 2;
+
+    private final int id;
+    private final String[] names;
+    private final Map<String, Integer> index;
+
+    // Edge arrays indexed by edge id; ids of deleted edges are not reused
+    private final IntList edgeFrom = new IntList();
+    private final IntList edgeTo = new IntList();
+    private final IntList edgeWeight = new IntList();
+    private final IntList edgeState = new IntList();
+
+    // Ids of all live edges and of tree edges only, per vertex
+    private final IntList[] incident;
+    private final IntList[] treeEdges;
+
+    private int totalCost;
+    private int treeEdgeCount;
+    private int operationsCount;
+    // Totals over the initial build and every update, for getResult
+    private long totalOperations;
+    private long totalNanos;
+    private long updateCount;
+
+    // Search buffers shared by all updates; v is marked when mark[v] == stamp
+    private final int[] mark;
+    private int stamp;
+    private final int[] queueA;
+    private final int[] queueB;
+    private final int[] parentEdge;
+
+    public DynamicMST(Graph graph) {
+        long startTime = System.nanoTime();
+        id = graph.getId();
+        List<String> vertices = graph.getVertices();
+        int vertexCount = vertices.size();
+        names = vertices.toArray(new String[0]);
+        index = new HashMap<>(vertexCount * 2);
+        incident = new IntList[vertexCount];
+        treeEdges = new IntList[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            if (index.putIfAbsent(names[v], v) != null) {
+                throw new IllegalArgumentException("Duplicate vertex " + names[v] + " in graph " + id);
+            }
+            incident[v] = new IntList(4);
+            treeEdges[v] = new IntList(4);
+        }
+        mark = new int[vertexCount];
+        queueA = new int[vertexCount];
+        queueB = new int[vertexCount];
+        parentEdge = new int[vertexCount];
+
+        for (Edge edge : graph.getEdges()) {
+            addEdge(vertex(edge.getFrom()), vertex(edge.getTo()), edge.getWeight());
+        }
+
+        // Initial forest with Kruskal over packed (weight, edge id) keys
+        int edgeCount = edgeState.size();
+        long[] keys = new long[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            keys[e] = ((long) edgeWeight.get(e) << 32) | e;
+        }
+        Arrays.sort(keys);
+        DisjointSet uf = new DisjointSet(vertexCount);
+        for (long key : keys) {
+            int e = (int) key;
+            totalOperations++;
+            if (uf.union(edgeFrom.get(e), edgeTo.get(e))) {
+                makeTree(e);
+                if (treeEdgeCount == vertexCount - 1) break;
+            }
+        }
+        totalNanos = System.nanoTime() - startTime;
+    }
+
+    public MSTUpdate insertEdge(String from, String to, int weight) {
+        long startTime = System.nanoTime();
+        operationsCount = 0;
+        List<Edge> added = new ArrayList<>();
+        List<Edge> removed = new ArrayList<>();
+
+        int e = addEdge(vertex(from), vertex(to), weight);
+        considerNonTreeEdge(e, added, removed);
+
+        return update(added, removed, startTime);
+    }
+
+    // With parallel edges between the endpoints, the lightest one is deleted
+    public MSTUpdate deleteEdge(String from, String to) {
+        long startTime = System.nanoTime();
+        operationsCount = 0;
+        List<Edge> added = new ArrayList<>();
+        List<Edge> removed = new ArrayList<>();
+
+        int e = findEdge(from, to);
+        if (edgeState.get(e) == TREE) {
+            removed.add(toEdge(e));
+            makeNonTree(e);
+            removeEdge(e);
+            reconnect(edgeFrom.get(e), edgeTo.get(e), added);
+        } else {
+            removeEdge(e);
+        }
+
+        return update(added, removed, startTime);
+    }
+
+    // With parallel edges between the endpoints, the lightest one is re-weighted
+    public MSTUpdate changeWeight(String from, String to, int weight) {
+        long startTime = System.nanoTime();
+        operationsCount = 0;
+        List<Edge> added = new ArrayList<>();
+        List<Edge> removed = new ArrayList<>();
+
+        int e = findEdge(from, to);
+        int oldWeight = edgeWeight.get(e);
+        if (edgeState.get(e) == TREE) {
+            removed.add(toEdge(e));
+            makeNonTree(e);
+            edgeWeight.set(e, weight);
+            if (weight <= oldWeight) {
+                // A lighter tree edge stays optimal
+                makeTree(e);
+                added.add(toEdge(e));
+            } else {
+                // Heavier: the edge competes with every other edge across the cut it leaves
+                reconnect(edgeFrom.get(e), edgeTo.get(e), added);
+            }
+        } else {
+            edgeWeight.set(e, weight);
+            if (weight < oldWeight) {
+                considerNonTreeEdge(e, added, removed);
+            }
+        }
+
+        return update(added, removed, startTime);
+    }
+
+    // Current spanning forest in the same shape the static engines return. Time and operations
+    // cover the initial build and every update so far.
+    public MSTResult getResult() {
+        List<Edge> mstEdges = new ArrayList<>(treeEdgeCount);
+        for (int e = 0; e < edgeState.size(); e++) {
+            if (edgeState.get(e) == TREE) {
+                mstEdges.add(toEdge(e));
+            }
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(STAT_UPDATES, updateCount);
+        stats.put(SpanningForest.STAT_COMPONENTS, (long) getComponentCount());
+        int operations = (int) Math.min(totalOperations, Integer.MAX_VALUE);
+        return new MSTResult(mstEdges, totalCost, operations, totalNanos, stats);
+    }
+
+    // Snapshot of the current edge set, e.g. for recomputing from scratch
+    public Graph toGraph() {
+        List<Edge> edges = new ArrayList<>();
+        for (int e = 0; e < edgeState.size(); e++) {
+            if (edgeState.get(e) != DELETED) {
+                edges.add(toEdge(e));
+            }
+        }
+        return new Graph(id, new ArrayList<>(Arrays.asList(names)), edges);
+    }
+
+    // Getters
+    public int getTotalCost() { return totalCost; }
+    public int getTreeEdgeCount() { return treeEdgeCount; }
+    public int getComponentCount() { return names.length - treeEdgeCount; }
+
+    private MSTUpdate update(List<Edge> added, List<Edge> removed, long startTime) {
+        long executionTimeNanos = System.nanoTime() - startTime;
+        totalNanos += executionTimeNanos;
+        totalOperations += operationsCount;
+        updateCount++;
+        return new MSTUpdate(added, removed, totalCost, operationsCount, executionTimeNanos);
+    }
+
+    // Cycle property: e enters the forest if it joins two trees or is lighter than the
+    // heaviest edge on the tree path between its endpoints
+    private void considerNonTreeEdge(int e, List<Edge> added, List<Edge> removed) {
+        int u = edgeFrom.get(e);
+        int v = edgeTo.get(e);
+        if (u == v) return;
+
+        int heaviest = heaviestOnPath(u, v);
+        if (heaviest == -1) {
+            makeTree(e);
+            added.add(toEdge(e));
+        } else if (edgeWeight.get(e) < edgeWeight.get(heaviest)) {
+            removed.add(toEdge(heaviest));
+            makeNonTree(heaviest);
+            makeTree(e);
+            added.add(toEdge(e));
+        }
+    }
+
+    // Heaviest tree edge on the path from u to v, or -1 if they are in different trees
+    private int heaviestOnPath(int u, int v) {
+        nextStamp();
+        mark[u] = stamp;
+        queueA[0] = u;
+        int head = 0;
+        int tail = 1;
+        while (head < tail && mark[v] != stamp) {
+            int x = queueA[head++];
+            IntList edges = treeEdges[x];
+            for (int i = 0; i < edges.size(); i++) {
+                operationsCount++;
+                int e = edges.get(i);
+                int y = other(e, x);
+                if (mark[y] != stamp) {
+                    mark[y] = stamp;
+                    parentEdge[y] = e;
+                    queueA[tail++] = y;
+                }
+            }
+        }
+        if (mark[v] != stamp) return -1;
+
+        int heaviest = -1;
+        for (int x = v; x != u; x = other(parentEdge[x], x)) {
+            operationsCount++;
+            int e = parentEdge[x];
+            if (heaviest < 0 || edgeWeight.get(e) > edgeWeight.get(heaviest)) {
+                heaviest = e;
+            }
+        }
+        return heaviest;
+    }
+
+    // Cut property: after a tree edge between u and v is gone, adds the cheapest live edge
+    // joining the two halves, if any
+    private void reconnect(int u, int v, List<Edge> added) {
+        int sideSize = smallerSide(u, v);
+        int best = -1;
+        for (int i = 0; i < sideSize; i++) {
+            int x = queueA[i];
+            IntList edges = incident[x];
+            for (int j = 0; j < edges.size(); j++) {
+                operationsCount++;
+                int e = edges.get(j);
+                if (edgeState.get(e) != NON_TREE || mark[other(e, x)] == stamp) continue;
+                if (best < 0 || edgeWeight.get(e) < edgeWeight.get(best)
+                        || (edgeWeight.get(e) == edgeWeight.get(best) && e < best)) {
+                    best = e;
+                }
+            }
+        }
+        if (best >= 0) {
+            makeTree(best);
+            added.add(toEdge(best));
+        }
+    }
+
+    // Grows the trees of u and v one vertex at a time until one is exhausted. Leaves that
+    // smaller tree's vertices in queueA, marked with the current stamp, and returns its size.
+    private int smallerSide(int u, int v) {
+        nextStamp();
+        int stampA = stamp;
+        nextStamp();
+        int stampB = stamp;
+        mark[u] = stampA;
+        mark[v] = stampB;
+        queueA[0] = u;
+        queueB[0] = v;
+        int headA = 0, tailA = 1;
+        int headB = 0, tailB = 1;
+
+        int[] side;
+        int sideSize;
+        while (true) {
+            if (headA == tailA) {
+                side = queueA;
+                sideSize = tailA;
+                break;
+            }
+            tailA = expand(queueA[headA++], stampA, queueA, tailA);
+            if (headB == tailB) {
+                side = queueB;
+                sideSize = tailB;
+                break;
+            }
+            tailB = expand(queueB[headB++], stampB, queueB, tailB);
+        }
+
+        nextStamp();
+        for (int i = 0; i < sideSize; i++) {
+            queueA[i] = side[i];
+            mark[side[i]] = stamp;
+        }
+        return sideSize;
+    }
+
+    private int expand(int x, int sideStamp, int[] queue, int tail) {
+        IntList edges = treeEdges[x];
+        for (int i = 0; i < edges.size(); i++) {
+            operationsCount++;
+            int y = other(edges.get(i), x);
+            if (mark[y] != sideStamp) {
+                mark[y] = sideStamp;
+                queue[tail++] = y;
+            }
+        }
+        return tail;
+    }
+
+    private void nextStamp() {
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(mark, 0);
+            stamp = 0;
+        }
+        stamp++;
+    }
+
+    private int addEdge(int u, int v, int weight) {
+        int e = edgeState.size();
+        edgeFrom.add(u);
+        edgeTo.add(v);
+        edgeWeight.add(weight);
+        edgeState.add(NON_TREE);
+        incident[u].add(e);
+        if (u != v) incident[v].add(e);
+        return e;
+    }
+
+    private void removeEdge(int e) {
+        edgeState.set(e, DELETED);
+        remove(incident[edgeFrom.get(e)], e);
+        if (edgeFrom.get(e) != edgeTo.get(e)) remove(incident[edgeTo.get(e)], e);
+    }
+
+    private void makeTree(int e) {
+        edgeState.set(e, TREE);
+        treeEdges[edgeFrom.get(e)].add(e);
+        treeEdges[edgeTo.get(e)].add(e);
+        totalCost += edgeWeight.get(e);
+        treeEdgeCount++;
+    }
+
+    private void makeNonTree(int e) {
+        edgeState.set(e, NON_TREE);
+        remove(treeEdges[edgeFrom.get(e)], e);
+        remove(treeEdges[edgeTo.get(e)], e);
+        totalCost -= edgeWeight.get(e);
+        treeEdgeCount--;
+    }
+
+    // Unordered removal: the last element fills the gap
+    private void remove(IntList list, int value) {
+        for (int i = 0; i < list.size(); i++) {
+            operationsCount++;
+            if (list.get(i) == value) {
+                int last = list.removeLast();
+                if (i < list.size()) list.set(i, last);
+                return;
+            }
+        }
+    }
+
+    // Lightest live edge between the two vertices, preferring a tree edge on ties
+    private int findEdge(String from, String to) {
+        int u = vertex(from);
+        int v = vertex(to);
+        int x = incident[u].size() <= incident[v].size() ? u : v;
+        int y = x == u ? v : u;
+        int best = -1;
+        IntList edges = incident[x];
+        for (int i = 0; i < edges.size(); i++) {
+            operationsCount++;
+            int e = edges.get(i);
+            if (other(e, x) != y) continue;
+            if (best < 0 || edgeWeight.get(e) < edgeWeight.get(best)
+                    || (edgeWeight.get(e) == edgeWeight.get(best) && edgeState.get(e) == TREE)) {
+                best = e;
+            }
+        }
+        if (best < 0) {
+            throw new IllegalArgumentException("No edge between " + from + " and " + to + " in graph " + id);
+        }
+        return best;
+    }
+
+    private int vertex(String name) {
+        Integer v = index.get(name);
+        if (v == null) {
+            throw new IllegalArgumentException("Unknown vertex " + name + " in graph " + id);
+        }
+        return v;
+    }
+
+    private int other(int e, int x) {
+        return edgeFrom.get(e) == x ? edgeTo.get(e) : edgeFrom.get(e);
+    }
+
+    private Edge toEdge(int e) {
+        return new Edge(names[edgeFrom.get(e)], names[edgeTo.get(e)], edgeWeight.get(e));
+    }
+}
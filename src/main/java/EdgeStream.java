@@ -0,0 +1,38 @@
+import java.io.IOException;
+
+// A graph whose edges are delivered one at a time in input order, so the edge set never has to
+// be held in memory. Vertex names stay available by id for materialising result edges.
+public interface EdgeStream {
+    int getId();
+    int getVertexCount();
+    long getEdgeCount();
+    String getVertexName(int vertex);
+
+    // Calls visitor once per edge, in input order; may be called more than once
+    void forEachEdge(EdgeVisitor visitor) throws IOException;
+
+    interface EdgeVisitor {
+        void accept(int from, int to, int weight) throws IOException;
+    }
+
+    // Streams the edges of a graph that is already in memory
+    static EdgeStream of(CompactGraph graph) {
+        return new EdgeStream() {
+            @Override
+            public int getId() { return graph.getId(); }
+            @Override
+            public int getVertexCount() { return graph.getVertexCount(); }
+            @Override
+            public long getEdgeCount() { return graph.getEdgeCount(); }
+            @Override
+            public String getVertexName(int vertex) { return graph.getVertexName(vertex); }
+
+            @Override
+            public void forEachEdge(EdgeVisitor visitor) throws IOException {
+                for (int e = 0; e < graph.getEdgeCount(); e++) {
+                    visitor.accept(graph.getEdgeFrom(e), graph.getEdgeTo(e), graph.getEdgeWeight(e));
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,380 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Out-of-core Kruskal for edge sets that do not fit in memory. Edges are read once from an
+// EdgeStream into fixed-size runs; each full run is sorted and spilled to a temporary file, and
+// the runs are k-way merged back in weight order into an in-memory DisjointSet. Memory is
+// O(V + run size) however many edges there are, and merging stops once V - 1 edges are accepted.
+// The run buffer is on the heap at 20 bytes per edge and never larger than the graph; a full
+// default run is about 80 MB, so heap use is flat in the edge count but not free, even when the
+// edges come from an OffHeapEdgeStore. A smaller run size trades heap for more runs.
+// Ties keep input order, so the tree is the same one KruskalMST picks.
+public class ExternalKruskalMST implements MSTAlgorithm {
+    public static final String STAT_RUNS = "runs";
+    public static final String STAT_BYTES_SPILLED = "bytes_spilled";
+    public static final String STAT_MERGE_PASSES = "merge_passes";
+    public static final String STAT_EDGES_SCANNED = "edges_scanned";
+
+    public static final int DEFAULT_RUN_EDGES = 1 << 22;
+    // Runs merged at once; more runs than this take intermediate passes
+    public static final int DEFAULT_MERGE_FAN_IN = 64;
+
+    // A spilled edge is int weight, int from, int to
+    private static final int RECORD_BYTES = 12;
+    // Per-run I/O buffer, a whole number of records
+    private static final int BUFFER_BYTES = RECORD_BYTES * 4096;
+
+    private final int runEdges;
+    private final int mergeFanIn;
+    // Where runs are spilled; null means the system temporary directory
+    private final File spillDirectory;
+
+    public ExternalKruskalMST() {
+        this(DEFAULT_RUN_EDGES, DEFAULT_MERGE_FAN_IN, null);
+    }
+
+    public ExternalKruskalMST(int runEdges, int mergeFanIn, File spillDirectory) {
+        if (runEdges < 1) {
+            throw new IllegalArgumentException("Run size must be at least 1 edge, got " + runEdges);
+        }
+        if (mergeFanIn < 2) {
+            throw new IllegalArgumentException("Merge fan-in must be at least 2, got " + mergeFanIn);
+        }
+        this.runEdges = runEdges;
+        this.mergeFanIn = mergeFanIn;
+        this.spillDirectory = spillDirectory;
+    }
+
+    public int getRunEdges() { return runEdges; }
+    public int getMergeFanIn() { return mergeFanIn; }
+
+    @Override
+    public String getName() { return "ExternalKruskal"; }
+
+    @Override
+    public String getCacheKey() { return "ExternalKruskal_r" + runEdges + "_f" + mergeFanIn; }
+
+    @Override
+    public MSTResult findMST(CompactGraph graph, MSTScratch scratch) {
+        try {
+            return findMST(EdgeStream.of(graph));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public MSTResult findMST(EdgeStream edges) throws IOException {
+        long startTime = System.nanoTime();
+        Solve solve = new Solve(edges);
+        try {
+            long sortStart = MSTMetrics.now();
+            edges.forEachEdge(solve::add);
+
+            if (solve.runs.isEmpty()) {
+                // Everything fit in one run, nothing to spill
+                solve.sortRun();
+                solve.metrics.addSortNanos(MSTMetrics.now() - sortStart);
+                long loopStart = MSTMetrics.now();
+                for (int i = 0; i < solve.count && !solve.isComplete(); i++) {
+                    int slot = (int) solve.keys[i];
+                    solve.accept((int) (solve.keys[i] >> 32), solve.from[slot], solve.to[slot]);
+                }
+                solve.metrics.addMainLoopNanos(MSTMetrics.now() - loopStart);
+            } else {
+                if (solve.count > 0) {
+                    solve.spillRun();
+                }
+                solve.releaseRunBuffer();
+                // Intermediate passes until one merge can take every run
+                while (solve.runs.size() > mergeFanIn) {
+                    solve.mergePass();
+                }
+                solve.metrics.addSortNanos(MSTMetrics.now() - sortStart);
+                long loopStart = MSTMetrics.now();
+                solve.mergePasses++;
+                solve.merge(solve.runs, solve::accept);
+                solve.metrics.addMainLoopNanos(MSTMetrics.now() - loopStart);
+            }
+        } finally {
+            solve.deleteRuns();
+        }
+
+        MSTMetrics metrics = solve.metrics;
+        metrics.add(solve.uf);
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(STAT_RUNS, (long) solve.runCount);
+        stats.put(STAT_BYTES_SPILLED, solve.bytesSpilled);
+        stats.put(STAT_MERGE_PASSES, (long) solve.mergePasses);
+        stats.put(STAT_EDGES_SCANNED, solve.edgesScanned);
+        metrics.addTo(stats);
+
+        long executionTimeNanos = System.nanoTime() - startTime;
+        return new MSTResult(solve.mstEdges, solve.totalCost, metrics.operations(), executionTimeNanos, stats);
+    }
+
+    // Receives merged edges in weight order; returns true to stop the merge early
+    private interface RecordSink {
+        boolean accept(int weight, int from, int to) throws IOException;
+    }
+
+    // Per-call state: the run buffer, the spilled runs and the growing tree
+    private class Solve {
+        final EdgeStream edges;
+        final int vertexCount;
+        final DisjointSet uf;
+        final MSTMetrics metrics = new MSTMetrics();
+        final List<Edge> mstEdges = new ArrayList<>();
+        // Runs still to be merged, and every file created so far for cleanup
+        List<File> runs = new ArrayList<>();
+        final List<File> created = new ArrayList<>();
+        int totalCost;
+
+        int[] from;
+        int[] to;
+        int[] weight;
+        long[] keys;
+        int count;
+
+        int runCount;
+        int mergePasses;
+        long bytesSpilled;
+        long edgesScanned;
+
+        Solve(EdgeStream edges) {
+            this.edges = edges;
+            this.vertexCount = edges.getVertexCount();
+            this.uf = new DisjointSet(vertexCount);
+            // Never larger than the graph, so small graphs do not pay for a full run buffer
+            int capacity = (int) Math.max(1, Math.min(runEdges, edges.getEdgeCount()));
+            from = new int[capacity];
+            to = new int[capacity];
+            weight = new int[capacity];
+            keys = new long[capacity];
+        }
+
+        void add(int u, int v, int w) throws IOException {
+            if (u < 0 || u >= vertexCount || v < 0 || v >= vertexCount) {
+                throw new IllegalArgumentException("Edge " + u + "-" + v + " has an endpoint outside 0.." + (vertexCount - 1));
+            }
+            if (count == from.length) {
+                spillRun();
+            }
+            from[count] = u;
+            to[count] = v;
+            weight[count] = w;
+            count++;
+        }
+
+        // Pack (weight, slot) so a primitive sort keeps ties in input order
+        void sortRun() {
+            for (int i = 0; i < count; i++) {
+                keys[i] = ((long) weight[i] << 32) | i;
+            }
+            Arrays.sort(keys, 0, count);
+        }
+
+        void spillRun() throws IOException {
+            sortRun();
+            File run = newRunFile();
+            runs.add(run);
+            try (RunWriter writer = new RunWriter(run)) {
+                for (int i = 0; i < count; i++) {
+                    int slot = (int) keys[i];
+                    writer.write(weight[slot], from[slot], to[slot]);
+                }
+            }
+            runCount++;
+            count = 0;
+        }
+
+        void releaseRunBuffer() {
+            from = to = weight = null;
+            keys = null;
+        }
+
+        // Merges consecutive groups of runs into longer runs, keeping their order
+        void mergePass() throws IOException {
+            List<File> merged = new ArrayList<>();
+            for (int start = 0; start < runs.size(); start += mergeFanIn) {
+                List<File> group = new ArrayList<>(runs.subList(start, Math.min(start + mergeFanIn, runs.size())));
+                File output = newRunFile();
+                merged.add(output);
+                try (RunWriter writer = new RunWriter(output)) {
+                    merge(group, (w, u, v) -> {
+                        writer.write(w, u, v);
+                        return false;
+                    });
+                }
+                for (File run : group) {
+                    Files.deleteIfExists(run.toPath());
+                }
+            }
+            runs = merged;
+            mergePasses++;
+        }
+
+        // K-way merge on a binary heap of (weight, run index) keys; equal weights come out in run order
+        void merge(List<File> inputs, RecordSink sink) throws IOException {
+            RunReader[] readers = new RunReader[inputs.size()];
+            long[] heap = new long[inputs.size()];
+            int size = 0;
+            try {
+                for (int r = 0; r < readers.length; r++) {
+                    readers[r] = new RunReader(inputs.get(r));
+                    if (readers[r].advance()) {
+                        heap[size] = ((long) readers[r].weight << 32) | r;
+                        siftUp(heap, size++);
+                    }
+                }
+                while (size > 0) {
+                    int r = (int) heap[0];
+                    RunReader reader = readers[r];
+                    if (sink.accept(reader.weight, reader.from, reader.to)) return;
+                    if (reader.advance()) {
+                        heap[0] = ((long) reader.weight << 32) | r;
+                    } else {
+                        heap[0] = heap[--size];
+                    }
+                    siftDown(heap, size);
+                }
+            } finally {
+                for (RunReader reader : readers) {
+                    if (reader != null) reader.close();
+                }
+            }
+        }
+
+        boolean accept(int w, int u, int v) {
+            edgesScanned++;
+            int rootU = uf.find(u);
+            int rootV = uf.find(v);
+            if (MSTMetrics.ENABLED) metrics.addComparisons(1);
+            if (rootU != rootV) {
+                uf.union(rootU, rootV);
+                mstEdges.add(new Edge(edges.getVertexName(u), edges.getVertexName(v), w));
+                totalCost += w;
+            }
+            return isComplete();
+        }
+
+        boolean isComplete() {
+            return mstEdges.size() >= vertexCount - 1;
+        }
+
+        File newRunFile() throws IOException {
+            // Deleted by deleteRuns, not deleteOnExit, whose list would grow for the life of a server JVM
+            File run = File.createTempFile("mst-run-", ".bin", spillDirectory);
+            created.add(run);
+            return run;
+        }
+
+        void deleteRuns() throws IOException {
+            for (File run : created) {
+                Files.deleteIfExists(run.toPath());
+            }
+        }
+
+        private void siftUp(long[] heap, int index) {
+            long key = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (MSTMetrics.ENABLED) metrics.addComparisons(1);
+                if (heap[parent] <= key) break;
+                heap[index] = heap[parent];
+                index = parent;
+            }
+            heap[index] = key;
+        }
+
+        private void siftDown(long[] heap, int size) {
+            if (size == 0) return;
+            long key = heap[0];
+            int index = 0;
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) break;
+                if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+                if (MSTMetrics.ENABLED) metrics.addComparisons(2);
+                if (key <= heap[child]) break;
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = key;
+        }
+
+        // Sequential writer for one run file
+        private class RunWriter implements AutoCloseable {
+            private final FileChannel channel;
+            private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(BinaryGraphFile.BYTE_ORDER);
+
+            RunWriter(File file) throws IOException {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            }
+
+            void write(int w, int u, int v) throws IOException {
+                if (buffer.remaining() < RECORD_BYTES) {
+                    flush();
+                }
+                buffer.putInt(w).putInt(u).putInt(v);
+            }
+
+            private void flush() throws IOException {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    bytesSpilled += channel.write(buffer);
+                }
+                buffer.clear();
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    flush();
+                } finally {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    // Sequential reader for one run file; advance() loads the next edge into the public fields
+    private static class RunReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(BinaryGraphFile.BYTE_ORDER);
+        int weight;
+        int from;
+        int to;
+
+        RunReader(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            buffer.limit(0);
+        }
+
+        boolean advance() throws IOException {
+            if (buffer.remaining() < RECORD_BYTES) {
+                // Refill until a whole record is buffered or the file ends
+                buffer.compact();
+                int read = 0;
+                while (buffer.position() < RECORD_BYTES && read >= 0) {
+                    read = channel.read(buffer);
+                }
+                buffer.flip();
+                if (buffer.remaining() < RECORD_BYTES) return false;
+            }
+            weight = buffer.getInt();
+            from = buffer.getInt();
+            to = buffer.getInt();
+            return true;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.*;
+
+// Synthetic graph held as plain edge arrays with vertices named N0..N(V-1). Large generated
+// graphs are written straight from these arrays; the object forms are built only on request.
+public class GeneratedGraph {
+    private final int id;
+    private final int vertexCount;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final int[] edgeWeight;
+
+    public GeneratedGraph(int id, int vertexCount, int[] edgeFrom, int[] edgeTo, int[] edgeWeight) {
+        this.id = id;
+        this.vertexCount = vertexCount;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeWeight = edgeWeight;
+    }
+
+    public static String vertexName(int v) {
+        return "N" + v;
+    }
+
+    public CompactGraph toCompactGraph() {
+        String[] names = new String[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            names[v] = vertexName(v);
+        }
+        return new CompactGraph(id, names, edgeFrom, edgeTo, edgeWeight);
+    }
+
+    public GraphInput toGraphInput() {
+        List<String> nodes = new ArrayList<>(vertexCount);
+        for (int v = 0; v < vertexCount; v++) {
+            nodes.add(vertexName(v));
+        }
+        List<EdgeInput> edges = new ArrayList<>(edgeFrom.length);
+        for (int e = 0; e < edgeFrom.length; e++) {
+            edges.add(new EdgeInput(vertexName(edgeFrom[e]), vertexName(edgeTo[e]), edgeWeight[e]));
+        }
+        return new GraphInput(id, nodes, edges);
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public int getVertexCount() { return vertexCount; }
+    public int getEdgeCount() { return edgeFrom.length; }
+    public int[] getEdgeFrom() { return edgeFrom; }
+    public int[] getEdgeTo() { return edgeTo; }
+    public int[] getEdgeWeight() { return edgeWeight; }
+}
@@ -4,6 +4,7 @@ public class Graph {
     private int id;
     private List<String> vertices;
     private List<Edge> edges;
+    private CompactGraph compactGraph;
 
     public Graph(int id, List<String> vertices, List<Edge> edges) {
         this.id = id;
@@ -33,4 +34,12 @@ public class Graph {
 
         return adjList;
     }
+
+    // CSR form for the MST engines, built once on first use
+    public CompactGraph getCompactGraph() {
+        if (compactGraph == null) {
+            compactGraph = CompactGraph.fromGraph(this);
+        }
+        return compactGraph;
+    }
 }
\ No newline at end of file
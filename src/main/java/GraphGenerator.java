@@ -1,16 +1,151 @@
 import java.util.*;
+import java.util.concurrent.*;
 import java.io.File;
+import java.math.BigInteger;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 
 public class GraphGenerator {
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    // One graph's edges live in int arrays
+    static final long MAX_GENERATED_EDGES = Integer.MAX_VALUE - 8;
+    // Random edges are generated in partitions of about this many edges, up to MAX_PARTITIONS
+    private static final long EDGES_PER_PARTITION = 1 << 16;
+    private static final int MAX_PARTITIONS = 256;
+    // Partitions with at most this many candidate pairs may deduplicate with a bitset
+    private static final long BITSET_MAX_PAIRS = 1 << 28;
+    // Hash sets of edge keys start at most this large and grow past it as keys arrive
+    private static final long MAX_PRESIZED_KEYS = 1 << 24;
+    static final int WIDE_MAX_WEIGHT = 1_000_000;
+    static final int TIE_LEVELS = 5;
+    // Shape of the heavy-tailed (Pareto) weights; smaller is heavier
+    private static final double PARETO_ALPHA = 1.5;
+
+    // Graph structures selectable with --family
+    enum Family {
+        RANDOM, GRID, GEOMETRIC, POWER_LAW, COMPLETE, NEAR_TREE;
+
+        static Family fromName(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    // Edge weight distributions selectable with --weights
+    enum WeightDistribution {
+        // 1..maxWeight
+        UNIFORM {
+            int sample(Random random, int maxWeight) { return 1 + random.nextInt(maxWeight); }
+        },
+        // 1..WIDE_MAX_WEIGHT whatever maxWeight is, so nearly all weights are distinct
+        WIDE {
+            int sample(Random random, int maxWeight) { return 1 + random.nextInt(WIDE_MAX_WEIGHT); }
+        },
+        // Only a few distinct values, so most comparisons are ties
+        TIES {
+            int sample(Random random, int maxWeight) { return 1 + random.nextInt(Math.min(maxWeight, TIE_LEVELS)); }
+        },
+        // Pareto: mostly 1s and 2s with rare weights up to maxWeight
+        HEAVY_TAILED {
+            int sample(Random random, int maxWeight) {
+                double u = 1 - random.nextDouble();
+                return (int) Math.min(maxWeight, Math.ceil(Math.pow(u, -1 / PARETO_ALPHA)));
+            }
+        };
+
+        abstract int sample(Random random, int maxWeight);
+
+        static WeightDistribution fromName(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+    // Also write each dataset in the binary graph format next to its JSON file
+    private static boolean emitBinary = false;
 
     static {
         objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
     }
 
+    // Custom generation: --vertices N with --family random|grid|geometric|power-law|complete|near-tree,
+    // --weights uniform|wide|ties|heavy-tailed, --density D or --edges E (random, near-tree),
+    // --degree K (neighbours per vertex for geometric, links per new vertex for power-law),
+    // --max-weight W, --seed S, --graphs K, --threads T, --output FILE (.json or .bin).
+    // Without --vertices the standard datasets are generated; --binary also writes them in the binary format.
     public static void main(String[] args) throws Exception {
+        int vertices = 0;
+        double density = -1;
+        long edges = -1;
+        int maxWeight = 100;
+        long seed = 42;
+        int graphCount = 1;
+        int threads = 1;
+        String output = "src/input/generated_graphs.json";
+        Family family = Family.RANDOM;
+        WeightDistribution weights = WeightDistribution.UNIFORM;
+        int degree = 4;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--binary":
+                    emitBinary = true;
+                    break;
+                case "--vertices":
+                    vertices = Integer.parseInt(args[++i]);
+                    break;
+                case "--density":
+                    density = Double.parseDouble(args[++i]);
+                    break;
+                case "--edges":
+                    edges = Long.parseLong(args[++i]);
+                    break;
+                case "--max-weight":
+                    maxWeight = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--graphs":
+                    graphCount = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--family":
+                    family = Family.fromName(args[++i]);
+                    break;
+                case "--weights":
+                    weights = WeightDistribution.fromName(args[++i]);
+                    break;
+                case "--degree":
+                    degree = Integer.parseInt(args[++i]);
+                    break;
+                case "--output":
+                    output = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (vertices > 0) {
+            long maxEdges = (long) vertices * (vertices - 1) / 2;
+            long targetEdges;
+            if (edges >= 0) {
+                targetEdges = edges;
+            } else if (density >= 0) {
+                targetEdges = (long) (maxEdges * density);
+            } else if (family == Family.NEAR_TREE) {
+                // A spanning tree plus 1% extra edges
+                targetEdges = vertices - 1 + vertices / 100;
+            } else {
+                targetEdges = (long) (maxEdges * 0.1);
+            }
+            generateCustomGraphs(output, graphCount, family, vertices, targetEdges, degree, weights, maxWeight,
+                    seed, threads);
+            return;
+        }
+
         generateSmallGraphs();
         generateMediumGraphs();
         generateLargeGraphs();
@@ -31,7 +166,7 @@ public class GraphGenerator {
         }
 
         InputData data = new InputData(graphs);
-        objectMapper.writeValue(new File("src/input/small_graphs.json"), data);
+        writeDataset(data, "src/input/small_graphs.json");
         System.out.println("Generated small graphs: 5 graphs with sizes: " + Arrays.toString(smallSizes));
     }
 
@@ -48,7 +183,7 @@ public class GraphGenerator {
         }
 
         InputData data = new InputData(graphs);
-        objectMapper.writeValue(new File("src/input/medium_graphs.json"), data);
+        writeDataset(data, "src/input/medium_graphs.json");
         System.out.println("Generated medium graphs: 10 graphs with sizes: " + Arrays.toString(mediumSizes));
     }
 
@@ -65,7 +200,7 @@ public class GraphGenerator {
         }
 
         InputData data = new InputData(graphs);
-        objectMapper.writeValue(new File("src/input/large_graphs.json"), data);
+        writeDataset(data, "src/input/large_graphs.json");
         System.out.println("Generated large graphs: 10 graphs with sizes: " + Arrays.toString(largeSizes));
     }
 
@@ -82,71 +217,595 @@ public class GraphGenerator {
         }
 
         InputData data = new InputData(graphs);
-        objectMapper.writeValue(new File("src/input/extra_large_graphs.json"), data);
+        writeDataset(data, "src/input/extra_large_graphs.json");
         System.out.println("Generated extra large graphs: 5 graphs with sizes: " + Arrays.toString(extraLargeSizes));
     }
 
-    private static GraphInput generateGraph(int id, int vertexCount, double density, Random random) {
-        List<String> nodes = new ArrayList<>();
-        List<EdgeInput> edges = new ArrayList<>();
+    private static void writeDataset(InputData data, String jsonPath) throws Exception {
+        objectMapper.writeValue(new File(jsonPath), data);
+        if (emitBinary) {
+            String binaryPath = jsonPath.replace(".json", BinaryGraphFile.EXTENSION);
+            try (BinaryGraphWriter writer = new BinaryGraphWriter(new File(binaryPath))) {
+                for (GraphInput graph : data.getGraphs()) {
+                    writer.write(JsonUtils.convertToGraph(graph).getCompactGraph());
+                }
+            }
+        }
+    }
 
-        // Generate node names
-        for (int i = 0; i < vertexCount; i++) {
-            nodes.add("N" + i);
+    // Generates and writes one graph at a time, so only the graph being written is in memory
+    private static void generateCustomGraphs(String path, int graphCount, Family family, int vertexCount,
+                                             long targetEdges, int degree, WeightDistribution weights,
+                                             int maxWeight, long seed, int threads) throws Exception {
+        boolean binary = path.endsWith(BinaryGraphFile.EXTENSION);
+        try (BinaryGraphWriter binaryWriter = binary ? new BinaryGraphWriter(new File(path)) : null;
+             JsonGenerator jsonWriter = binary ? null
+                     : objectMapper.getFactory().createGenerator(new File(path), JsonEncoding.UTF8)) {
+            if (jsonWriter != null) {
+                jsonWriter.writeStartObject();
+                jsonWriter.writeArrayFieldStart("graphs");
+            }
+            for (int id = 1; id <= graphCount; id++) {
+                long startTime = System.nanoTime();
+                GeneratedGraph graph = generate(family, id, vertexCount, targetEdges, degree, weights, maxWeight,
+                        seed + id, threads);
+                long generated = System.nanoTime();
+                if (binary) {
+                    int[] from = graph.getEdgeFrom();
+                    int[] to = graph.getEdgeTo();
+                    int[] weight = graph.getEdgeWeight();
+                    binaryWriter.write(id, vertexCount, GeneratedGraph::vertexName, graph.getEdgeCount(),
+                            e -> from[e], e -> to[e], e -> weight[e]);
+                } else {
+                    writeJson(jsonWriter, graph);
+                }
+                System.out.printf("Graph %d: %s, %d vertices, %d edges (generated in %d ms, written in %d ms)%n",
+                        id, family.name().toLowerCase(Locale.ROOT), vertexCount, graph.getEdgeCount(), (generated - startTime) / 1_000_000,
+                        (System.nanoTime() - generated) / 1_000_000);
+            }
+            if (jsonWriter != null) {
+                jsonWriter.writeEndArray();
+                jsonWriter.writeEndObject();
+            }
+        }
+        System.out.println("Generated " + graphCount + " graphs into " + path);
+    }
+
+    // Same shape as GraphInput, written token by token instead of through edge objects
+    private static void writeJson(JsonGenerator generator, GeneratedGraph graph) throws Exception {
+        generator.writeStartObject();
+        generator.writeNumberField("id", graph.getId());
+        generator.writeArrayFieldStart("nodes");
+        for (int v = 0; v < graph.getVertexCount(); v++) {
+            generator.writeString(GeneratedGraph.vertexName(v));
         }
+        generator.writeEndArray();
+        generator.writeArrayFieldStart("edges");
+        int[] from = graph.getEdgeFrom();
+        int[] to = graph.getEdgeTo();
+        int[] weight = graph.getEdgeWeight();
+        for (int e = 0; e < graph.getEdgeCount(); e++) {
+            generator.writeStartObject();
+            generator.writeStringField("from", GeneratedGraph.vertexName(from[e]));
+            generator.writeStringField("to", GeneratedGraph.vertexName(to[e]));
+            generator.writeNumberField("weight", weight[e]);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static GraphInput generateGraph(int id, int vertexCount, double density, Random random) {
+        GraphInput graph = generateGraph(id, vertexCount, density, 100, random);
 
-        // Generate edges with controlled density
         int maxEdges = vertexCount * (vertexCount - 1) / 2;
-        int targetEdges = (int) (maxEdges * density);
-        targetEdges = Math.max(targetEdges, vertexCount - 1); // Ensure connectivity
-        targetEdges = Math.min(targetEdges, maxEdges); // Don't exceed maximum
+        double actualDensity = (graph.getEdges().size() * 100.0) / maxEdges;
+        System.out.printf("Graph %d: %d vertices, %d edges (density: %.1f%%)%n",
+                id, vertexCount, graph.getEdges().size(), actualDensity);
+
+        return graph;
+    }
+
+    // Connected random graph with weights uniform in 1..maxWeight; shared with the benchmarks
+    static GraphInput generateGraph(int id, int vertexCount, double density, int maxWeight, Random random) {
+        long maxEdges = (long) vertexCount * (vertexCount - 1) / 2;
+        long targetEdges = (long) (maxEdges * density);
+        return generate(id, vertexCount, targetEdges, maxWeight, random.nextLong(), 1).toGraphInput();
+    }
+
+    // Connected graph of the given family. targetEdges applies to random and near-tree graphs,
+    // degree to geometric and power-law graphs.
+    static GeneratedGraph generate(Family family, int id, int vertexCount, long targetEdges, int degree,
+                                   WeightDistribution weights, int maxWeight, long seed, int threads) {
+        switch (family) {
+            case RANDOM:
+            case NEAR_TREE:
+                return generate(id, vertexCount, targetEdges, weights, maxWeight, seed, threads);
+            case GRID:
+                return generateGrid(id, vertexCount, weights, maxWeight, seed);
+            case GEOMETRIC:
+                return generateGeometric(id, vertexCount, degree, seed);
+            case POWER_LAW:
+                return generatePowerLaw(id, vertexCount, degree, weights, maxWeight, seed);
+            case COMPLETE:
+                return generateComplete(id, vertexCount, weights, maxWeight, seed);
+            default:
+                throw new IllegalArgumentException("Unknown graph family: " + family);
+        }
+    }
+
+    // Near-square 4-neighbour lattice; vertex v sits at row v / columns, column v % columns
+    static GeneratedGraph generateGrid(int id, int vertexCount, WeightDistribution weights, int maxWeight, long seed) {
+        int columns = Math.max(1, (int) Math.ceil(Math.sqrt(vertexCount)));
+        IntList from = new IntList();
+        IntList to = new IntList();
+        for (int v = 0; v < vertexCount; v++) {
+            if ((v + 1) % columns != 0 && v + 1 < vertexCount) {
+                from.add(v);
+                to.add(v + 1);
+            }
+            if (v + columns < vertexCount) {
+                from.add(v);
+                to.add(v + columns);
+            }
+        }
+        return withWeights(id, vertexCount, from, to, weights, maxWeight, seed);
+    }
+
+    // Every pair of vertices
+    static GeneratedGraph generateComplete(int id, int vertexCount, WeightDistribution weights, int maxWeight, long seed) {
+        long edgeCount = (long) vertexCount * (vertexCount - 1) / 2;
+        if (edgeCount > MAX_GENERATED_EDGES) {
+            throw new IllegalArgumentException("Complete graph on " + vertexCount + " vertices has too many edges");
+        }
+        IntList from = new IntList((int) Math.max(edgeCount, 1));
+        IntList to = new IntList((int) Math.max(edgeCount, 1));
+        for (int u = 0; u < vertexCount; u++) {
+            for (int v = u + 1; v < vertexCount; v++) {
+                from.add(u);
+                to.add(v);
+            }
+        }
+        return withWeights(id, vertexCount, from, to, weights, maxWeight, seed);
+    }
+
+    // Barabasi-Albert preferential attachment: starts from a clique on links + 1 vertices, then each
+    // new vertex links to that many distinct earlier vertices chosen proportionally to degree
+    static GeneratedGraph generatePowerLaw(int id, int vertexCount, int links, WeightDistribution weights,
+                                           int maxWeight, long seed) {
+        if (links < 1) {
+            throw new IllegalArgumentException("Power-law graphs need at least one link per vertex, got " + links);
+        }
+        Random random = new Random(seed);
+        int core = Math.min(links + 1, vertexCount);
+        IntList from = new IntList();
+        IntList to = new IntList();
+        // Every edge endpoint, so a uniform pick from it is a degree-proportional pick of a vertex
+        IntList endpoints = new IntList();
+        for (int u = 0; u < core; u++) {
+            for (int v = u + 1; v < core; v++) {
+                from.add(u);
+                to.add(v);
+                endpoints.add(u);
+                endpoints.add(v);
+            }
+        }
+        int[] chosen = new int[links];
+        for (int v = core; v < vertexCount; v++) {
+            int count = 0;
+            while (count < links) {
+                int target = endpoints.get(random.nextInt(endpoints.size()));
+                boolean duplicate = false;
+                for (int i = 0; i < count; i++) {
+                    duplicate |= chosen[i] == target;
+                }
+                if (!duplicate) chosen[count++] = target;
+            }
+            for (int i = 0; i < links; i++) {
+                from.add(chosen[i]);
+                to.add(v);
+                endpoints.add(chosen[i]);
+                endpoints.add(v);
+            }
+        }
+        return withWeights(id, vertexCount, from, to, weights, maxWeight, seed);
+    }
+
+    // Random points in the unit square, each joined to its k nearest neighbours. Weights are the
+    // Euclidean lengths scaled to 1..WIDE_MAX_WEIGHT, so the weight distribution option does not apply.
+    // Neighbours are found through a grid of cells holding about k points each; any components
+    // left apart are chained together by their first vertices.
+    static GeneratedGraph generateGeometric(int id, int vertexCount, int k, long seed) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Geometric graphs need at least one neighbour per vertex, got " + k);
+        }
+        Random random = new Random(seed);
+        double[] x = new double[vertexCount];
+        double[] y = new double[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            x[v] = random.nextDouble();
+            y[v] = random.nextDouble();
+        }
+
+        // Bucket points by cell with a counting sort
+        int side = Math.max(1, (int) Math.sqrt((double) vertexCount / k));
+        int[] cellStart = new int[side * side + 1];
+        int[] cellOf = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            cellOf[v] = cell(x[v], side) * side + cell(y[v], side);
+            cellStart[cellOf[v] + 1]++;
+        }
+        for (int c = 0; c < side * side; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cellPoints = new int[vertexCount];
+        int[] filled = Arrays.copyOf(cellStart, side * side);
+        for (int v = 0; v < vertexCount; v++) {
+            cellPoints[filled[cellOf[v]]++] = v;
+        }
 
-        Set<String> addedEdges = new HashSet<>();
+        int neighbours = Math.min(k, vertexCount - 1);
+        int[] best = new int[neighbours];
+        // Squared distances, which order the same as distances
+        double[] bestDistance = new double[neighbours];
+        // vertexCount * neighbours can pass Integer.MAX_VALUE, so size the set from a clamped long
+        LongHashSet seen = new LongHashSet((int) Math.min((long) vertexCount * neighbours, MAX_PRESIZED_KEYS));
+        IntList from = new IntList();
+        IntList to = new IntList();
+        DisjointSet uf = new DisjointSet(vertexCount);
+        for (int v = 0; v < vertexCount && neighbours > 0; v++) {
+            int cx = cellOf[v] / side;
+            int cy = cellOf[v] % side;
+            int found = 0;
+            // Rings 0..r-1 cover every point within r-1 cell widths, so stop once the k-th is closer than that
+            for (int r = 0; r <= side; r++) {
+                double covered = (double) (r - 1) / side;
+                if (found == neighbours && r > 0 && bestDistance[0] <= covered * covered) break;
+                for (int gx = cx - r; gx <= cx + r; gx++) {
+                    for (int gy = cy - r; gy <= cy + r; gy++) {
+                        if (Math.max(Math.abs(gx - cx), Math.abs(gy - cy)) != r) continue;
+                        if (gx < 0 || gy < 0 || gx >= side || gy >= side) continue;
+                        int c = gx * side + gy;
+                        for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                            int u = cellPoints[i];
+                            if (u == v) continue;
+                            double dx = x[u] - x[v];
+                            double dy = y[u] - y[v];
+                            found = offerNeighbour(best, bestDistance, found, u, dx * dx + dy * dy);
+                        }
+                    }
+                }
+            }
+            for (int i = 0; i < found; i++) {
+                int u = Math.min(v, best[i]);
+                int w = Math.max(v, best[i]);
+                if (seen.add((long) u * vertexCount + w)) {
+                    from.add(u);
+                    to.add(w);
+                    uf.union(u, w);
+                }
+            }
+        }
+
+        // Chain separate components through their first vertices
+        int previous = -1;
+        for (int v = 0; v < vertexCount; v++) {
+            if (uf.find(v) != v) continue;
+            if (previous >= 0) {
+                from.add(previous);
+                to.add(v);
+            }
+            previous = v;
+        }
+
+        int[] edgeFrom = from.toArray();
+        int[] edgeTo = to.toArray();
+        int[] weight = new int[edgeFrom.length];
+        for (int e = 0; e < edgeFrom.length; e++) {
+            double d = Math.hypot(x[edgeFrom[e]] - x[edgeTo[e]], y[edgeFrom[e]] - y[edgeTo[e]]);
+            weight[e] = 1 + (int) (d / Math.sqrt(2) * (WIDE_MAX_WEIGHT - 1));
+        }
+        return new GeneratedGraph(id, vertexCount, edgeFrom, edgeTo, weight);
+    }
+
+    private static int cell(double coordinate, int side) {
+        return Math.min((int) (coordinate * side), side - 1);
+    }
+
+    // Keeps the k closest candidates as a max-heap on distance (root = farthest); returns the new count
+    private static int offerNeighbour(int[] best, double[] distance, int count, int candidate, double d) {
+        int slot;
+        if (count < best.length) {
+            slot = count++;
+            while (slot > 0 && distance[(slot - 1) / 2] < d) {
+                int parent = (slot - 1) / 2;
+                best[slot] = best[parent];
+                distance[slot] = distance[parent];
+                slot = parent;
+            }
+        } else if (d < distance[0]) {
+            slot = 0;
+            while (true) {
+                int child = 2 * slot + 1;
+                if (child >= count) break;
+                if (child + 1 < count && distance[child + 1] > distance[child]) child++;
+                if (distance[child] <= d) break;
+                best[slot] = best[child];
+                distance[slot] = distance[child];
+                slot = child;
+            }
+        } else {
+            return count;
+        }
+        best[slot] = candidate;
+        distance[slot] = d;
+        return count;
+    }
 
-        // First, ensure graph is connected (create spanning tree)
-        List<Integer> connected = new ArrayList<>();
-        connected.add(0);
-        List<Integer> unconnected = new ArrayList<>();
+    private static GeneratedGraph withWeights(int id, int vertexCount, IntList from, IntList to,
+                                              WeightDistribution weights, int maxWeight, long seed) {
+        Random random = new Random(partitionSeed(seed, -1));
+        int[] weight = new int[from.size()];
+        for (int e = 0; e < weight.length; e++) {
+            weight[e] = weights.sample(random, maxWeight);
+        }
+        return new GeneratedGraph(id, vertexCount, from.toArray(), to.toArray(), weight);
+    }
+
+    // Connected random graph with exactly min(max(targetEdges, V-1), V(V-1)/2) distinct edges.
+    // The spanning tree comes first: each vertex of a random permutation attaches to a random
+    // earlier one, which is O(V). The remaining edges are split into partitions by the range of
+    // their smaller endpoint; each partition has a fixed share of the edges and its own seed, so
+    // the output depends only on the seed, never on the number of threads.
+    static GeneratedGraph generate(int id, int vertexCount, long targetEdges, int maxWeight, long seed, int threads) {
+        return generate(id, vertexCount, targetEdges, WeightDistribution.UNIFORM, maxWeight, seed, threads);
+    }
+
+    static GeneratedGraph generate(int id, int vertexCount, long targetEdges, WeightDistribution weights,
+                                   int maxWeight, long seed, int threads) {
+        long maxEdges = (long) vertexCount * (vertexCount - 1) / 2;
+        int treeEdges = Math.max(vertexCount - 1, 0);
+        long edgeTotal = Math.min(Math.max(targetEdges, treeEdges), maxEdges);
+        if (edgeTotal > MAX_GENERATED_EDGES) {
+            throw new IllegalArgumentException("Cannot generate " + edgeTotal + " edges in one graph, limit is "
+                    + MAX_GENERATED_EDGES);
+        }
+        int edgeCount = (int) edgeTotal;
+        int[] from = new int[edgeCount];
+        int[] to = new int[edgeCount];
+        int[] weight = new int[edgeCount];
+
+        Random random = new Random(seed);
+        int[] order = new int[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            order[i] = i;
+        }
+        for (int i = vertexCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
         for (int i = 1; i < vertexCount; i++) {
-            unconnected.add(i);
+            from[i - 1] = order[random.nextInt(i)];
+            to[i - 1] = order[i];
+            weight[i - 1] = weights.sample(random, maxWeight);
+        }
+
+        if (edgeCount > treeEdges) {
+            addRandomEdges(vertexCount, from, to, weight, treeEdges, weights, maxWeight, seed, threads);
         }
+        return new GeneratedGraph(id, vertexCount, from, to, weight);
+    }
 
-        while (!unconnected.isEmpty()) {
-            int fromIndex = random.nextInt(connected.size());
-            int toIndex = random.nextInt(unconnected.size());
-            int from = connected.get(fromIndex);
-            int to = unconnected.get(toIndex);
+    // Fills edges [treeEdges, length) with distinct non-tree pairs. Pairs (u, v) with u < v are
+    // numbered in row order, so partition p owns the contiguous pair range of rows [bound[p], bound[p+1]).
+    private static void addRandomEdges(int vertexCount, int[] from, int[] to, int[] weight, int treeEdges,
+                                       WeightDistribution weights, int maxWeight, long seed, int threads) {
+        long maxEdges = (long) vertexCount * (vertexCount - 1) / 2;
+        long extraEdges = from.length - treeEdges;
+        int partitions = (int) Math.min(MAX_PARTITIONS, Math.max(1, extraEdges / EDGES_PER_PARTITION));
 
-            int weight = 1 + random.nextInt(100);
-            String edgeKey = Math.min(from, to) + "-" + Math.max(from, to);
+        // Rows split so each partition owns about the same number of pairs
+        int[] bound = new int[partitions + 1];
+        bound[partitions] = vertexCount - 1;
+        for (int p = 1; p < partitions; p++) {
+            bound[p] = firstRowAtOrAfter(vertexCount, maxEdges / partitions * p);
+        }
 
-            edges.add(new EdgeInput("N" + from, "N" + to, weight));
-            addedEdges.add(edgeKey);
+        // Tree pairs bucketed by partition, so each partition can skip them
+        int[] treeCount = new int[partitions + 1];
+        for (int e = 0; e < treeEdges; e++) {
+            treeCount[partitionOf(bound, Math.min(from[e], to[e])) + 1]++;
+        }
+        for (int p = 0; p < partitions; p++) {
+            treeCount[p + 1] += treeCount[p];
+        }
+        long[] treePairs = new long[treeEdges];
+        int[] filled = Arrays.copyOf(treeCount, partitions);
+        for (int e = 0; e < treeEdges; e++) {
+            int u = Math.min(from[e], to[e]);
+            int v = Math.max(from[e], to[e]);
+            treePairs[filled[partitionOf(bound, u)]++] = pairIndex(vertexCount, u, v);
+        }
 
-            connected.add(to);
-            unconnected.remove(toIndex);
+        // Each partition's share is proportional to the pairs still free in it
+        long freePairs = maxEdges - treeEdges;
+        int[] edgeStart = new int[partitions + 1];
+        edgeStart[0] = treeEdges;
+        long freeSoFar = 0;
+        for (int p = 0; p < partitions; p++) {
+            long pairs = rowStart(vertexCount, bound[p + 1]) - rowStart(vertexCount, bound[p]);
+            freeSoFar += pairs - (treeCount[p + 1] - treeCount[p]);
+            // Exact arithmetic: the product can exceed a long, and rounding up could overfill a partition
+            long share = BigInteger.valueOf(extraEdges).multiply(BigInteger.valueOf(freeSoFar))
+                    .divide(BigInteger.valueOf(freePairs)).longValue();
+            edgeStart[p + 1] = (int) (treeEdges + share);
         }
 
-        // Add additional random edges
-        while (edges.size() < targetEdges && edges.size() < maxEdges) {
-            int from = random.nextInt(vertexCount);
-            int to = random.nextInt(vertexCount);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int p = 0; p < partitions; p++) {
+            int partition = p;
+            tasks.add(() -> {
+                fillPartition(vertexCount, bound[partition], bound[partition + 1],
+                        treePairs, treeCount[partition], treeCount[partition + 1],
+                        from, to, weight, edgeStart[partition], edgeStart[partition + 1],
+                        weights, maxWeight, partitionSeed(seed, partition));
+                return null;
+            });
+        }
+        runAll(tasks, threads);
+    }
 
-            if (from != to) {
-                String edgeKey = Math.min(from, to) + "-" + Math.max(from, to);
+    private static void fillPartition(int vertexCount, int rowFrom, int rowTo, long[] treePairs, int treeFrom,
+                                      int treeTo, int[] from, int[] to, int[] weight, int edgeFrom, int edgeTo,
+                                      WeightDistribution weights, int maxWeight, long seed) {
+        int quota = edgeTo - edgeFrom;
+        if (quota == 0) return;
+        Random random = new Random(seed);
+        long firstPair = rowStart(vertexCount, rowFrom);
+        long pairs = rowStart(vertexCount, rowTo) - firstPair;
+        int treeInPartition = treeTo - treeFrom;
+        int e = edgeFrom;
 
-                if (!addedEdges.contains(edgeKey)) {
-                    int weight = 1 + random.nextInt(100);
-                    edges.add(new EdgeInput("N" + from, "N" + to, weight));
-                    addedEdges.add(edgeKey);
+        if (pairs <= BITSET_MAX_PAIRS && pairs <= 128L * (quota + treeInPartition)) {
+            // Dense enough for a bitset over the partition's pairs
+            BitSet taken = new BitSet((int) pairs);
+            for (int t = treeFrom; t < treeTo; t++) {
+                taken.set((int) (treePairs[t] - firstPair));
+            }
+            long free = pairs - treeInPartition;
+            if (quota > free / 2) {
+                // Mostly full: mark the pairs to leave out instead, then take every other free pair
+                for (long skip = free - quota; skip > 0; ) {
+                    int k = (int) nextLong(random, pairs);
+                    if (!taken.get(k)) {
+                        taken.set(k);
+                        skip--;
+                    }
+                }
+                for (int k = taken.nextClearBit(0); k < pairs && e < edgeTo; k = taken.nextClearBit(k + 1)) {
+                    setPair(vertexCount, rowFrom, rowTo, firstPair + k, from, to, e);
+                    weight[e++] = weights.sample(random, maxWeight);
                 }
+            } else {
+                while (e < edgeTo) {
+                    int k = (int) nextLong(random, pairs);
+                    if (taken.get(k)) continue;
+                    taken.set(k);
+                    setPair(vertexCount, rowFrom, rowTo, firstPair + k, from, to, e);
+                    weight[e++] = weights.sample(random, maxWeight);
+                }
+            }
+        } else {
+            LongHashSet taken = new LongHashSet(quota + treeInPartition);
+            for (int t = treeFrom; t < treeTo; t++) {
+                taken.add(treePairs[t]);
+            }
+            while (e < edgeTo) {
+                long pair = firstPair + nextLong(random, pairs);
+                if (!taken.add(pair)) continue;
+                setPair(vertexCount, rowFrom, rowTo, pair, from, to, e);
+                weight[e++] = weights.sample(random, maxWeight);
             }
         }
+    }
 
-        double actualDensity = (edges.size() * 100.0) / maxEdges;
-        System.out.printf("Graph %d: %d vertices, %d edges (density: %.1f%%)%n",
-                id, vertexCount, edges.size(), actualDensity);
+    // Index of the first pair in row u, i.e. pairs (x, y) with x < u come before it
+    private static long rowStart(int vertexCount, int u) {
+        return (long) u * (2L * vertexCount - u - 1) / 2;
+    }
+
+    private static long pairIndex(int vertexCount, int u, int v) {
+        return rowStart(vertexCount, u) + (v - u - 1);
+    }
+
+    private static int firstRowAtOrAfter(int vertexCount, long pair) {
+        int low = 0;
+        int high = vertexCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (rowStart(vertexCount, mid) < pair) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
 
-        return new GraphInput(id, nodes, edges);
+    // Decodes a pair index known to lie in rows [rowFrom, rowTo) into edge slot e
+    private static void setPair(int vertexCount, int rowFrom, int rowTo, long pair, int[] from, int[] to, int e) {
+        int low = rowFrom;
+        int high = rowTo - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (rowStart(vertexCount, mid) <= pair) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        from[e] = low;
+        to[e] = (int) (low + 1 + pair - rowStart(vertexCount, low));
+    }
+
+    // Last partition starting at or before row; empty partitions share a start with the next one
+    private static int partitionOf(int[] bound, int row) {
+        int low = 0;
+        int high = bound.length - 2;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (bound[mid] <= row) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    private static long partitionSeed(long seed, int partition) {
+        long z = seed + 0x9E3779B97F4A7C15L * (partition + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Uniform long in [0, bound)
+    private static long nextLong(Random random, long bound) {
+        long bits;
+        long value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+
+    private static void runAll(List<Callable<Void>> tasks, int threads) {
+        if (threads <= 1 || tasks.size() <= 1) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return;
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Graph generation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
     }
-}
\ No newline at end of file
+}
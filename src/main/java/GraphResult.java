@@ -3,12 +3,17 @@ public class GraphResult {
     private InputStats input_stats;
     private MSTOutput prim;
     private MSTOutput kruskal;
+    private MSTOutput boruvka;
+    private MSTOutput selected;
 
-    public GraphResult(int graph_id, InputStats input_stats, MSTOutput prim, MSTOutput kruskal) {
+    public GraphResult(int graph_id, InputStats input_stats, MSTOutput prim, MSTOutput kruskal,
+                       MSTOutput boruvka, MSTOutput selected) {
         this.graph_id = graph_id;
         this.input_stats = input_stats;
         this.prim = prim;
         this.kruskal = kruskal;
+        this.boruvka = boruvka;
+        this.selected = selected;
     }
 
     // Getters and setters
@@ -23,4 +28,10 @@ public class GraphResult {
 
     public MSTOutput getKruskal() { return kruskal; }
     public void setKruskal(MSTOutput kruskal) { this.kruskal = kruskal; }
+
+    public MSTOutput getBoruvka() { return boruvka; }
+    public void setBoruvka(MSTOutput boruvka) { this.boruvka = boruvka; }
+
+    public MSTOutput getSelected() { return selected; }
+    public void setSelected(MSTOutput selected) { this.selected = selected; }
 }
\ No newline at end of file
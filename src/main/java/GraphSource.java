@@ -0,0 +1,16 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+// A sequence of graphs read from some file format, one CompactGraph at a time
+public interface GraphSource extends Iterator<CompactGraph>, Closeable {
+
+    // Opens a binary graph file (.bin) or an InputData JSON file based on the extension
+    static GraphSource open(String filePath) throws IOException {
+        if (filePath.endsWith(BinaryGraphFile.EXTENSION)) {
+            return new BinaryGraphReader(new File(filePath));
+        }
+        return new GraphStreamReader(new File(filePath));
+    }
+}
@@ -0,0 +1,235 @@
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+// Reads the InputData JSON format one graph at a time with Jackson's token API and builds
+// each CompactGraph straight from the tokens, so only one graph is ever held in memory.
+// By default each graph's names are interned in a table of their own, so memory stays bounded by the
+// largest graph however many distinct names the file holds. Passing a SymbolTable opts in to one
+// table for the whole input, so graphs share name Strings at the cost of keeping every name.
+public class GraphStreamReader implements GraphSource {
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final JsonParser parser;
+    private final SymbolTable symbols;
+    private final Loader loader;
+    private CompactGraph next;
+    private boolean finished;
+
+    public GraphStreamReader(File file) throws IOException {
+        this(file, null);
+    }
+
+    // Interns every graph's names in symbols, or in a table per graph when it is null. Passing the
+    // same table to several readers shares names across their files too.
+    public GraphStreamReader(File file, SymbolTable symbols) throws IOException {
+        this.symbols = symbols;
+        loader = new Loader(symbols);
+        parser = jsonFactory.createParser(file);
+        try {
+            positionAtGraphs();
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    // Advances to the first element of the top-level "graphs" array
+    private void positionAtGraphs() throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("graphs".equals(field)) {
+                expect(parser, value, JsonToken.START_ARRAY);
+                return;
+            }
+            parser.skipChildren();
+        }
+        // No graphs array at all
+        finished = true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                JsonToken token = parser.nextToken();
+                next = token == JsonToken.END_ARRAY ? null : loader.readGraph(parser);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            finished = next == null;
+        }
+        return next != null;
+    }
+
+    @Override
+    public CompactGraph next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        CompactGraph graph = next;
+        next = null;
+        return graph;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    // The shared table, or null when each graph has its own
+    public SymbolTable getSymbols() { return symbols; }
+
+    // Parses a single graph object in the GraphInput shape, e.g. one request line in service mode.
+    // Each call has its own table, so a long-running server does not keep every name it has seen.
+    public static CompactGraph parseGraph(String json) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            parser.nextToken();
+            CompactGraph graph = new Loader(null).readGraph(parser);
+            if (parser.nextToken() != null) {
+                throw new IOException("Unexpected content after graph at " + parser.getCurrentLocation());
+            }
+            return graph;
+        }
+    }
+
+    // Turns the names of one graph at a time into that graph's dense vertex ids. Names are interned
+    // in the shared table, or in a fresh one per graph without it; localIds maps a symbol to its
+    // vertex in the current graph, or -1, and is cleared after each graph so it is only ever as
+    // large as the table.
+    private static class Loader {
+        private final SymbolTable shared;
+        private SymbolTable symbols;
+        private int[] localIds = new int[0];
+
+        Loader(SymbolTable shared) {
+            this.shared = shared;
+        }
+
+        // Reads the graph object starting at the parser's current token
+        CompactGraph readGraph(JsonParser parser) throws IOException {
+            expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+            symbols = shared != null ? shared : new SymbolTable();
+
+            int id = 0;
+            // Symbols of the "nodes" list in order, and edges as symbol pairs until the nodes are known
+            IntList nodes = new IntList();
+            IntList from = new IntList();
+            IntList to = new IntList();
+            IntList weight = new IntList();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "id":
+                        id = parser.getIntValue();
+                        break;
+                    case "nodes":
+                        expect(parser, value, JsonToken.START_ARRAY);
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            nodes.add(intern(parser));
+                        }
+                        break;
+                    case "edges":
+                        expect(parser, value, JsonToken.START_ARRAY);
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            readEdge(parser, from, to, weight);
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+
+            return buildGraph(id, nodes, from, to, weight);
+        }
+
+        private void readEdge(JsonParser parser, IntList from, IntList to, IntList weight) throws IOException {
+            expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+            int u = -1;
+            int v = -1;
+            int w = 0;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                switch (field) {
+                    case "from":
+                        u = intern(parser);
+                        break;
+                    case "to":
+                        v = intern(parser);
+                        break;
+                    case "weight":
+                        w = parser.getIntValue();
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (u < 0 || v < 0) {
+                throw new IOException("Edge without from/to at " + parser.getCurrentLocation());
+            }
+            from.add(u);
+            to.add(v);
+            weight.add(w);
+        }
+
+        // Looks the name up in the parser's buffer, so repeated names never become new Strings
+        private int intern(JsonParser parser) throws IOException {
+            return symbols.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        }
+
+        // Numbers vertices by their position in "nodes", and rejects duplicate and unknown vertices
+        private CompactGraph buildGraph(int id, IntList nodes, IntList from, IntList to, IntList weight) {
+            if (localIds.length < symbols.size()) {
+                int old = localIds.length;
+                localIds = Arrays.copyOf(localIds, Math.max(symbols.size(), 2 * old));
+                Arrays.fill(localIds, old, localIds.length, -1);
+            }
+            int vertexCount = nodes.size();
+            try {
+                String[] names = new String[vertexCount];
+                for (int i = 0; i < vertexCount; i++) {
+                    int symbol = nodes.get(i);
+                    if (localIds[symbol] >= 0) {
+                        throw new IllegalArgumentException("Duplicate vertex " + symbols.getName(symbol) + " in graph " + id);
+                    }
+                    localIds[symbol] = i;
+                    names[i] = symbols.getName(symbol);
+                }
+
+                int[] edgeFrom = from.toArray();
+                int[] edgeTo = to.toArray();
+                for (int e = 0; e < edgeFrom.length; e++) {
+                    edgeFrom[e] = vertex(edgeFrom[e], id);
+                    edgeTo[e] = vertex(edgeTo[e], id);
+                }
+                return new CompactGraph(id, names, edgeFrom, edgeTo, weight.toArray());
+            } finally {
+                for (int i = 0; i < vertexCount; i++) {
+                    localIds[nodes.get(i)] = -1;
+                }
+            }
+        }
+
+        private int vertex(int symbol, int graphId) {
+            if (localIds[symbol] < 0) {
+                throw new IllegalArgumentException("Edge references unknown vertex " + symbols.getName(symbol) + " in graph " + graphId);
+            }
+            return localIds[symbol];
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual + " at " + parser.getCurrentLocation());
+        }
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+// Indexed d-ary min-heap over int ids 0..capacity-1 with int keys and true decrease-key.
+// Each id is present at most once, so the heap never holds more than capacity entries.
+public class IndexedMinHeap {
+    private final int arity;
+    private int[] heap;      // heap position -> id
+    private int[] position;  // id -> heap position, or -1 if absent
+    private int[] keys;      // id -> current key
+    private int size;
+    // Event counters for MSTMetrics, cleared by reset()
+    private long pushCount;
+    private long popCount;
+    private long decreaseKeyCount;
+    private long comparisonCount;
+
+    public IndexedMinHeap(int capacity, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2, got " + arity);
+        }
+        this.arity = arity;
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new int[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    // Empty the heap and make room for ids 0..capacity-1
+    public void reset(int capacity) {
+        if (capacity > position.length) {
+            heap = new int[capacity];
+            position = new int[capacity];
+            keys = new int[capacity];
+            Arrays.fill(position, -1);
+        } else {
+            for (int i = 0; i < size; i++) {
+                position[heap[i]] = -1;
+            }
+        }
+        size = 0;
+        pushCount = 0;
+        popCount = 0;
+        decreaseKeyCount = 0;
+        comparisonCount = 0;
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+    public int getArity() { return arity; }
+    public boolean contains(int id) { return position[id] >= 0; }
+    public int keyOf(int id) { return keys[id]; }
+    public long getPushCount() { return pushCount; }
+    public long getPopCount() { return popCount; }
+    public long getDecreaseKeyCount() { return decreaseKeyCount; }
+    public long getComparisonCount() { return comparisonCount; }
+
+    public void insert(int id, int key) {
+        if (contains(id)) {
+            throw new IllegalArgumentException("Id " + id + " is already in the heap");
+        }
+        keys[id] = key;
+        heap[size] = id;
+        position[id] = size;
+        if (MSTMetrics.ENABLED) pushCount++;
+        siftUp(size++);
+    }
+
+    public void decreaseKey(int id, int key) {
+        if (key > keys[id]) {
+            throw new IllegalArgumentException("New key " + key + " is greater than current key " + keys[id]);
+        }
+        keys[id] = key;
+        if (MSTMetrics.ENABLED) decreaseKeyCount++;
+        siftUp(position[id]);
+    }
+
+    // Removes and returns the id with the smallest key
+    public int poll() {
+        if (size == 0) {
+            throw new NoSuchElementException("Heap is empty");
+        }
+        int min = heap[0];
+        position[min] = -1;
+        if (MSTMetrics.ENABLED) popCount++;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private void siftUp(int index) {
+        int id = heap[index];
+        int key = keys[id];
+        while (index > 0) {
+            int parentIndex = (index - 1) / arity;
+            int parent = heap[parentIndex];
+            if (MSTMetrics.ENABLED) comparisonCount++;
+            if (keys[parent] <= key) break;
+            heap[index] = parent;
+            position[parent] = index;
+            index = parentIndex;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+
+    private void siftDown(int index) {
+        int id = heap[index];
+        int key = keys[id];
+        while (true) {
+            int firstChild = index * arity + 1;
+            if (firstChild >= size) break;
+
+            // Find the smallest of up to arity children
+            int best = firstChild;
+            int lastChild = Math.min(firstChild + arity, size);
+            for (int c = firstChild + 1; c < lastChild; c++) {
+                if (keys[heap[c]] < keys[heap[best]]) best = c;
+            }
+            if (MSTMetrics.ENABLED) comparisonCount += lastChild - firstChild;
+            if (keys[heap[best]] >= key) break;
+
+            heap[index] = heap[best];
+            position[heap[index]] = index;
+            index = best;
+        }
+        heap[index] = id;
+        position[id] = index;
+    }
+}
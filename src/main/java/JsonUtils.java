@@ -16,15 +16,35 @@ public class JsonUtils {
         return objectMapper.readValue(new File(filePath), InputData.class);
     }
 
+    // Streams graphs one at a time instead of materialising the whole InputData
+    public static GraphStreamReader streamGraphs(String filePath) throws IOException {
+        return new GraphStreamReader(new File(filePath));
+    }
+
+    // One table for the whole input, so a name repeated across edges and graphs is one String
     public static List<Graph> convertToGraphs(InputData inputData) {
+        SymbolTable symbols = new SymbolTable();
         List<Graph> graphs = new ArrayList<>();
         for (GraphInput graphInput : inputData.getGraphs()) {
-            List<Edge> edges = new ArrayList<>();
-            for (EdgeInput edgeInput : graphInput.getEdges()) {
-                edges.add(new Edge(edgeInput.getFrom(), edgeInput.getTo(), edgeInput.getWeight()));
-            }
-            graphs.add(new Graph(graphInput.getId(), graphInput.getNodes(), edges));
+            graphs.add(convertToGraph(graphInput, symbols));
         }
         return graphs;
     }
+
+    public static Graph convertToGraph(GraphInput graphInput) {
+        return convertToGraph(graphInput, new SymbolTable());
+    }
+
+    public static Graph convertToGraph(GraphInput graphInput, SymbolTable symbols) {
+        List<String> vertices = new ArrayList<>(graphInput.getNodes().size());
+        for (String node : graphInput.getNodes()) {
+            vertices.add(symbols.canonical(node));
+        }
+        List<Edge> edges = new ArrayList<>();
+        for (EdgeInput edgeInput : graphInput.getEdges()) {
+            edges.add(new Edge(symbols.canonical(edgeInput.getFrom()), symbols.canonical(edgeInput.getTo()),
+                    edgeInput.getWeight()));
+        }
+        return new Graph(graphInput.getId(), vertices, edges);
+    }
 }
\ No newline at end of file
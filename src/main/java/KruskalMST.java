@@ -1,77 +1,239 @@
 import java.util.*;
 
-public class KruskalMST {
-    private int operationsCount;
+public class KruskalMST implements MSTAlgorithm {
+    public static final String STAT_EDGES_SORTED = "edges_sorted";
+    public static final String STAT_EDGES_DISCARDED = "edges_discarded";
+    public static final String STAT_COUNTING_SORT = "counting_sort";
+    public static final String STAT_EDGES_PARALLEL_SORTED = "edges_parallel_sorted";
 
-    public MSTResult findMST(Graph graph) {
-        operationsCount = 0;
-        long startTime = System.nanoTime();
+    // Ranges of at least this many edges are sorted with Arrays.parallelSort on the common pool
+    public static final int DEFAULT_PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    // FULL sorts every edge up front; FILTER is Filter-Kruskal, which partitions around a pivot,
+    // handles the light half first and drops heavy edges that already close a cycle before sorting them.
+    // Either way, a narrow weight range is sorted whole by counting sort, which costs no more than
+    // Filter-Kruskal's partitioning and keeps ties in the same order as a comparison sort.
+    public enum SortStrategy { FULL, FILTER }
+
+    // Filter-Kruskal sorts ranges at or below this size directly
+    private static final int FILTER_BASE_CASE = 1024;
+    // Counting sort is used when there are at least this many edges and the weight range
+    // is no wider than COUNTING_SORT_RANGE_FACTOR times the edge count
+    private static final int COUNTING_SORT_MIN_EDGES = 256;
+    private static final int COUNTING_SORT_RANGE_FACTOR = 2;
+
+    private final SortStrategy strategy;
+    private final int parallelSortThreshold;
+
+    public KruskalMST() {
+        this(SortStrategy.FULL);
+    }
+
+    public KruskalMST(SortStrategy strategy) {
+        this(strategy, DEFAULT_PARALLEL_SORT_THRESHOLD);
+    }
+
+    // Use Integer.MAX_VALUE as the threshold to always sort on the calling thread
+    public KruskalMST(SortStrategy strategy, int parallelSortThreshold) {
+        if (parallelSortThreshold < 2) {
+            throw new IllegalArgumentException("Parallel sort threshold must be at least 2, got " + parallelSortThreshold);
+        }
+        this.strategy = strategy;
+        this.parallelSortThreshold = parallelSortThreshold;
+    }
 
-        List<Edge> mstEdges = new ArrayList<>();
-        int totalCost = 0;
+    public SortStrategy getStrategy() { return strategy; }
+    public int getParallelSortThreshold() { return parallelSortThreshold; }
 
-        // Sort edges by weight
-        List<Edge> sortedEdges = new ArrayList<>(graph.getEdges());
-        Collections.sort(sortedEdges);
-        operationsCount += (int) (sortedEdges.size() * Math.log(sortedEdges.size()));
+    @Override
+    public String getName() { return "Kruskal"; }
 
-        UnionFind uf = new UnionFind(graph.getVertices());
+    @Override
+    public String getCacheKey() { return "Kruskal_" + strategy + "_p" + parallelSortThreshold; }
 
-        for (Edge edge : sortedEdges) {
-            operationsCount++;
-            if (mstEdges.size() == graph.getVertexCount() - 1) break;
+    @Override
+    public MSTResult findMST(CompactGraph graph, MSTScratch scratch) {
+        long startTime = System.nanoTime();
+        long loopStart = MSTMetrics.now();
+
+        int edgeCount = graph.getEdgeCount();
+        long[] keys = scratch.longs(edgeCount);
+        Scan scan = new Scan(graph, scratch.disjointSet(graph.getVertexCount()), parallelSortThreshold);
+        boolean countingSort = false;
 
-            String fromRoot = uf.find(edge.getFrom());
-            String toRoot = uf.find(edge.getTo());
-            operationsCount += 2;
+        int minWeight = Integer.MAX_VALUE;
+        int maxWeight = Integer.MIN_VALUE;
+        for (int e = 0; e < edgeCount; e++) {
+            int w = graph.getEdgeWeight(e);
+            if (w < minWeight) minWeight = w;
+            if (w > maxWeight) maxWeight = w;
+        }
 
-            if (!fromRoot.equals(toRoot)) {
-                mstEdges.add(edge);
-                totalCost += edge.getWeight();
-                uf.union(edge.getFrom(), edge.getTo());
-                operationsCount += 3;
+        if (useCountingSort(edgeCount, minWeight, maxWeight)) {
+            long sortStart = MSTMetrics.now();
+            countingSort(scan, keys, scratch.clearedInts(0, maxWeight - minWeight + 2), minWeight, maxWeight);
+            scan.metrics.addSortNanos(MSTMetrics.now() - sortStart);
+            scan.edgesSorted = edgeCount;
+            countingSort = true;
+            scanSorted(scan, keys, 0, edgeCount);
+        } else {
+            // Pack (weight, edge id) so a primitive sort keeps ties in input order
+            for (int e = 0; e < edgeCount; e++) {
+                keys[e] = ((long) graph.getEdgeWeight(e) << 32) | e;
             }
+            if (strategy == SortStrategy.FILTER) {
+                filterKruskal(scan, keys, 0, edgeCount);
+            } else {
+                sortAndScan(scan, keys, 0, edgeCount);
+            }
+        }
+
+        // Everything that is not sorting or partitioning counts as the main loop
+        MSTMetrics metrics = scan.metrics;
+        metrics.addMainLoopNanos(MSTMetrics.now() - loopStart - metrics.getSortNanos());
+        metrics.addComparisons(scan.comparisons);
+        metrics.add(scan.uf);
+
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(STAT_EDGES_SORTED, scan.edgesSorted);
+        stats.put(STAT_EDGES_DISCARDED, edgeCount - scan.edgesSorted);
+        stats.put(STAT_COUNTING_SORT, countingSort ? 1L : 0L);
+        stats.put(STAT_EDGES_PARALLEL_SORTED, scan.edgesParallelSorted);
+        metrics.addTo(stats);
+
+        long executionTimeNanos = System.nanoTime() - startTime;
+        return new MSTResult(scan.mstEdges, scan.totalCost, metrics.operations(), executionTimeNanos, stats);
+    }
+
+    private static void filterKruskal(Scan scan, long[] keys, int from, int to) {
+        if (scan.isComplete() || from >= to) return;
+        if (to - from <= FILTER_BASE_CASE) {
+            sortAndScan(scan, keys, from, to);
+            return;
         }
 
-        long executionTime = (System.nanoTime() - startTime) / 1_000_000;
-        return new MSTResult(mstEdges, totalCost, operationsCount, executionTime);
+        int split = partition(scan, keys, from, to);
+        if (split == from || split == to) {
+            // Degenerate pivot, nothing to gain from recursing
+            sortAndScan(scan, keys, from, to);
+            return;
+        }
+
+        filterKruskal(scan, keys, from, split);
+        if (scan.isComplete()) return;
+        int kept = filter(scan, keys, split, to);
+        filterKruskal(scan, keys, split, kept);
     }
 
-    // Union-Find data structure for Kruskal's algorithm
-    private static class UnionFind {
-        private Map<String, String> parent;
-        private Map<String, Integer> rank;
-
-        public UnionFind(List<String> vertices) {
-            parent = new HashMap<>();
-            rank = new HashMap<>();
-            for (String vertex : vertices) {
-                parent.put(vertex, vertex);
-                rank.put(vertex, 0);
+    // Partitions keys[from, to) around a median-of-three pivot; returns the start of the heavy half
+    private static int partition(Scan scan, long[] keys, int from, int to) {
+        long partitionStart = MSTMetrics.now();
+        long a = keys[from];
+        long b = keys[(from + to) >>> 1];
+        long c = keys[to - 1];
+        long pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+
+        int i = from;
+        for (int j = from; j < to; j++) {
+            if (keys[j] < pivot) {
+                long tmp = keys[i];
+                keys[i] = keys[j];
+                keys[j] = tmp;
+                i++;
             }
         }
+        if (MSTMetrics.ENABLED) scan.comparisons += to - from;
+        scan.metrics.addSortNanos(MSTMetrics.now() - partitionStart);
+        return i;
+    }
 
-        public String find(String x) {
-            if (!parent.get(x).equals(x)) {
-                parent.put(x, find(parent.get(x)));
+    // Moves edges whose endpoints are still in different trees to the front; returns the new end
+    private static int filter(Scan scan, long[] keys, int from, int to) {
+        int kept = from;
+        for (int i = from; i < to; i++) {
+            int edge = (int) keys[i];
+            if (!scan.uf.connected(scan.graph.getEdgeFrom(edge), scan.graph.getEdgeTo(edge))) {
+                keys[kept++] = keys[i];
             }
-            return parent.get(x);
         }
+        return kept;
+    }
 
-        public void union(String x, String y) {
-            String rootX = find(x);
-            String rootY = find(y);
+    // Counting sort beats O(E log E) once the weight range is comparable to the edge count
+    private static boolean useCountingSort(int edgeCount, int minWeight, int maxWeight) {
+        if (edgeCount < COUNTING_SORT_MIN_EDGES) return false;
+        long range = (long) maxWeight - minWeight + 1;
+        return range <= (long) COUNTING_SORT_RANGE_FACTOR * edgeCount;
+    }
 
-            if (rootX.equals(rootY)) return;
+    // Stable counting sort by weight, writing packed keys in the same order Arrays.sort would
+    private static void countingSort(Scan scan, long[] keys, int[] next, int min, int max) {
+        CompactGraph graph = scan.graph;
+        int edgeCount = graph.getEdgeCount();
+        int buckets = max - min + 2;
+        for (int e = 0; e < edgeCount; e++) {
+            next[graph.getEdgeWeight(e) - min + 1]++;
+        }
+        for (int i = 1; i < buckets; i++) {
+            next[i] += next[i - 1];
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            int w = graph.getEdgeWeight(e);
+            keys[next[w - min]++] = ((long) w << 32) | e;
+        }
+    }
 
-            if (rank.get(rootX) < rank.get(rootY)) {
-                parent.put(rootX, rootY);
-            } else if (rank.get(rootX) > rank.get(rootY)) {
-                parent.put(rootY, rootX);
-            } else {
-                parent.put(rootY, rootX);
-                rank.put(rootX, rank.get(rootX) + 1);
+    private static void sortAndScan(Scan scan, long[] keys, int from, int to) {
+        long sortStart = MSTMetrics.now();
+        // Only the sort runs in parallel; the union-find scan below stays sequential
+        if (to - from >= scan.parallelSortThreshold) {
+            Arrays.parallelSort(keys, from, to);
+            scan.edgesParallelSorted += to - from;
+        } else {
+            Arrays.sort(keys, from, to);
+        }
+        scan.metrics.addSortNanos(MSTMetrics.now() - sortStart);
+        scan.edgesSorted += to - from;
+        scanSorted(scan, keys, from, to);
+    }
+
+    private static void scanSorted(Scan scan, long[] keys, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (scan.isComplete()) break;
+
+            int edge = (int) keys[i];
+            int fromRoot = scan.uf.find(scan.graph.getEdgeFrom(edge));
+            int toRoot = scan.uf.find(scan.graph.getEdgeTo(edge));
+            if (MSTMetrics.ENABLED) scan.comparisons++;
+
+            if (fromRoot != toRoot) {
+                scan.mstEdges.add(scan.graph.toEdge(edge));
+                scan.totalCost += scan.graph.getEdgeWeight(edge);
+                scan.uf.union(fromRoot, toRoot);
             }
         }
     }
-}
\ No newline at end of file
+
+    // Per-call state shared by the sort and filter phases
+    private static class Scan {
+        final CompactGraph graph;
+        final DisjointSet uf;
+        final List<Edge> mstEdges = new ArrayList<>();
+        final MSTMetrics metrics = new MSTMetrics();
+        int totalCost;
+        long comparisons;
+        final int parallelSortThreshold;
+        long edgesSorted;
+        long edgesParallelSorted;
+
+        Scan(CompactGraph graph, DisjointSet uf, int parallelSortThreshold) {
+            this.graph = graph;
+            this.uf = uf;
+            this.parallelSortThreshold = parallelSortThreshold;
+        }
+
+        boolean isComplete() {
+            return mstEdges.size() == graph.getVertexCount() - 1;
+        }
+    }
+}
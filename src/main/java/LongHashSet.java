@@ -0,0 +1,65 @@
+import java.util.Arrays;
+
+// Open-addressing hash set of non-negative longs with linear probing, used to deduplicate
+// packed edge keys without boxing. Grows when half full.
+public class LongHashSet {
+    private static final long EMPTY = -1;
+
+    private long[] slots;
+    private int size;
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        slots = new long[capacity];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    // Returns false if the key was already present
+    public boolean add(long key) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Keys must be non-negative, got " + key);
+        }
+        if (2 * (size + 1) > slots.length) {
+            grow();
+        }
+        int mask = slots.length - 1;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            if (slots[slot] == EMPTY) {
+                slots[slot] = key;
+                size++;
+                return true;
+            }
+            if (slots[slot] == key) return false;
+        }
+    }
+
+    public boolean contains(long key) {
+        int mask = slots.length - 1;
+        for (int slot = hash(key) & mask; slots[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (slots[slot] == key) return true;
+        }
+        return false;
+    }
+
+    public int size() { return size; }
+
+    private void grow() {
+        long[] old = slots;
+        slots = new long[old.length * 2];
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+        for (long key : old) {
+            if (key != EMPTY) add(key);
+        }
+    }
+
+    // Murmur3 finaliser, so sequential keys spread over the table
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
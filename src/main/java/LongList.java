@@ -0,0 +1,45 @@
+import java.util.Arrays;
+
+// Growable list of primitive longs, used when building file indexes and offsets of unknown size
+public class LongList {
+    private long[] values;
+    private int size;
+
+    public LongList() {
+        this(16);
+    }
+
+    public LongList(int initialCapacity) {
+        values = new long[Math.max(initialCapacity, 1)];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    public void set(int index, long value) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        values[index] = value;
+    }
+
+    public int size() { return size; }
+
+    public void clear() { size = 0; }
+
+    // Exact-length copy of the contents
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
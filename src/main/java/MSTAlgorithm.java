@@ -0,0 +1,23 @@
+// Common interface for the MST engines so callers can pick one at runtime.
+// Implementations are stateless: one instance may be shared by any number of threads.
+public interface MSTAlgorithm {
+    String getName();
+
+    // Identifies the engine and every setting that can change its result or stats, for result caching;
+    // made of letters, digits, '.', '_' and '-' so it can be part of a file name
+    default String getCacheKey() {
+        return getName();
+    }
+
+    // Solves using the caller's working buffers
+    MSTResult findMST(CompactGraph graph, MSTScratch scratch);
+
+    // Solves using the calling thread's working buffers
+    default MSTResult findMST(CompactGraph graph) {
+        return findMST(graph, MSTScratch.forCurrentThread());
+    }
+
+    default MSTResult findMST(Graph graph) {
+        return findMST(graph.getCompactGraph());
+    }
+}
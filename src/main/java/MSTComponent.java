@@ -0,0 +1,25 @@
+import java.util.*;
+
+// Spanning tree of one connected component within a spanning forest
+public class MSTComponent {
+    private int componentId;
+    private int vertexCount;
+    private String algorithm;
+    private List<Edge> mstEdges;
+    private int totalCost;
+
+    public MSTComponent(int componentId, int vertexCount, String algorithm, List<Edge> mstEdges, int totalCost) {
+        this.componentId = componentId;
+        this.vertexCount = vertexCount;
+        this.algorithm = algorithm;
+        this.mstEdges = mstEdges;
+        this.totalCost = totalCost;
+    }
+
+    // Getters
+    public int getComponentId() { return componentId; }
+    public int getVertexCount() { return vertexCount; }
+    public String getAlgorithm() { return algorithm; }
+    public List<Edge> getMstEdges() { return mstEdges; }
+    public int getTotalCost() { return totalCost; }
+}
@@ -0,0 +1,104 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+// Work counters and phase timings for one MST solve, reported through MSTResult stats.
+// Counts are real events (heap pushes, finds, key comparisons made by the engine's own code, ...);
+// library sorts are not instrumented and show up as sort time instead. Every increment is guarded
+// by ENABLED, a static final the JIT folds, so with -Dmst.metrics=false the guarded code disappears.
+public class MSTMetrics {
+    public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("mst.metrics"));
+
+    public static final String HEAP_PUSHES = "heap_pushes";
+    public static final String HEAP_POPS = "heap_pops";
+    public static final String DECREASE_KEYS = "decrease_keys";
+    public static final String FINDS = "finds";
+    public static final String UNIONS = "unions";
+    public static final String PATH_COMPRESSION_STEPS = "path_compression_steps";
+    public static final String COMPARISONS = "comparisons";
+    public static final String BYTES_ALLOCATED = "bytes_allocated";
+    public static final String SORT_NANOS = "sort_ns";
+    public static final String MAIN_LOOP_NANOS = "main_loop_ns";
+
+    // Per-thread allocation counter, if the JVM offers one
+    private static final com.sun.management.ThreadMXBean threadBean = allocationBean();
+
+    private long heapPushes;
+    private long heapPops;
+    private long decreaseKeys;
+    private long finds;
+    private long unions;
+    private long pathCompressionSteps;
+    private long comparisons;
+    private long sortNanos;
+    private long mainLoopNanos;
+    private final long allocatedAtStart;
+
+    public MSTMetrics() {
+        allocatedAtStart = ENABLED ? allocatedBytes() : 0;
+    }
+
+    // Timestamp for phase timing, or 0 when metrics are off
+    public static long now() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    // Folds in the events a heap recorded since its last reset
+    public void add(IndexedMinHeap heap) {
+        heapPushes += heap.getPushCount();
+        heapPops += heap.getPopCount();
+        decreaseKeys += heap.getDecreaseKeyCount();
+        comparisons += heap.getComparisonCount();
+    }
+
+    // Folds in the events a disjoint set recorded since its last reset
+    public void add(DisjointSet uf) {
+        finds += uf.getFindCount();
+        unions += uf.getUnionCount();
+        pathCompressionSteps += uf.getPathCompressionSteps();
+    }
+
+    public void addComparisons(long count) { comparisons += count; }
+    public void addSortNanos(long nanos) { sortNanos += nanos; }
+    public void addMainLoopNanos(long nanos) { mainLoopNanos += nanos; }
+
+    public long getSortNanos() { return sortNanos; }
+    public long getMainLoopNanos() { return mainLoopNanos; }
+
+    // Sum of the work counters, comparable across engines; 0 when metrics are off
+    public int operations() {
+        long total = heapPushes + heapPops + decreaseKeys + finds + unions + pathCompressionSteps + comparisons;
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    // Adds every counter and phase time to stats and returns it; stats is left as is when metrics are off
+    public Map<String, Long> addTo(Map<String, Long> stats) {
+        if (!ENABLED) return stats;
+        stats.put(HEAP_PUSHES, heapPushes);
+        stats.put(HEAP_POPS, heapPops);
+        stats.put(DECREASE_KEYS, decreaseKeys);
+        stats.put(FINDS, finds);
+        stats.put(UNIONS, unions);
+        stats.put(PATH_COMPRESSION_STEPS, pathCompressionSteps);
+        stats.put(COMPARISONS, comparisons);
+        // Only the calling thread's allocations; parallel engines' workers are not included
+        long allocated = allocatedBytes();
+        stats.put(BYTES_ALLOCATED, allocated >= 0 && allocatedAtStart >= 0 ? allocated - allocatedAtStart : -1);
+        stats.put(SORT_NANOS, sortNanos);
+        stats.put(MAIN_LOOP_NANOS, mainLoopNanos);
+        return stats;
+    }
+
+    private static long allocatedBytes() {
+        return threadBean != null ? threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        }
+        return null;
+    }
+}
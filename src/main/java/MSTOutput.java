@@ -1,12 +1,17 @@
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 
 public class MSTOutput {
+    private String algorithm;
     private List<EdgeOutput> mst_edges;
     private int total_cost;
     private int operations_count;
     private double execution_time_ms;
+    // Per-component trees, only present for disconnected graphs
+    private List<ComponentOutput> components;
 
-    public MSTOutput(List<EdgeOutput> mst_edges, int total_cost, int operations_count, double execution_time_ms) {
+    public MSTOutput(String algorithm, List<EdgeOutput> mst_edges, int total_cost, int operations_count, double execution_time_ms) {
+        this.algorithm = algorithm;
         this.mst_edges = mst_edges;
         this.total_cost = total_cost;
         this.operations_count = operations_count;
@@ -14,6 +19,9 @@ public class MSTOutput {
     }
 
     // Getters and setters
+    public String getAlgorithm() { return algorithm; }
+    public void setAlgorithm(String algorithm) { this.algorithm = algorithm; }
+
     public List<EdgeOutput> getMst_edges() { return mst_edges; }
     public void setMst_edges(List<EdgeOutput> mst_edges) { this.mst_edges = mst_edges; }
 
@@ -25,4 +33,8 @@ public class MSTOutput {
 
     public double getExecution_time_ms() { return execution_time_ms; }
     public void setExecution_time_ms(double execution_time_ms) { this.execution_time_ms = execution_time_ms; }
-}
\ No newline at end of file
+
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public List<ComponentOutput> getComponents() { return components; }
+    public void setComponents(List<ComponentOutput> components) { this.components = components; }
+}
@@ -1,21 +1,43 @@
-import java.util.List;
+import java.util.*;
 
 public class MSTResult {
     private List<Edge> mstEdges;
     private int totalCost;
     private int operationsCount;
-    private long executionTime;
+    // Wall-clock time of the solve in nanoseconds
+    private long executionTimeNanos;
+    // Engine-specific counters, e.g. how many edges Kruskal actually sorted
+    private Map<String, Long> stats;
+    // Per-component trees when the result is a spanning forest, otherwise empty
+    private List<MSTComponent> components;
 
-    public MSTResult(List<Edge> mstEdges, int totalCost, int operationsCount, long executionTime) {
+    public MSTResult(List<Edge> mstEdges, int totalCost, int operationsCount, long executionTimeNanos) {
+        this(mstEdges, totalCost, operationsCount, executionTimeNanos, Collections.emptyMap());
+    }
+
+    public MSTResult(List<Edge> mstEdges, int totalCost, int operationsCount, long executionTimeNanos,
+                     Map<String, Long> stats) {
+        this(mstEdges, totalCost, operationsCount, executionTimeNanos, stats, Collections.emptyList());
+    }
+
+    public MSTResult(List<Edge> mstEdges, int totalCost, int operationsCount, long executionTimeNanos,
+                     Map<String, Long> stats, List<MSTComponent> components) {
         this.mstEdges = mstEdges;
         this.totalCost = totalCost;
         this.operationsCount = operationsCount;
-        this.executionTime = executionTime;
+        this.executionTimeNanos = executionTimeNanos;
+        this.stats = stats;
+        this.components = components;
     }
 
     // Getters
     public List<Edge> getMstEdges() { return mstEdges; }
     public int getTotalCost() { return totalCost; }
     public int getOperationsCount() { return operationsCount; }
-    public long getExecutionTime() { return executionTime; }
-}
\ No newline at end of file
+    // Whole milliseconds; use getExecutionTimeNanos for anything that is compared or averaged
+    public long getExecutionTime() { return executionTimeNanos / 1_000_000; }
+    public long getExecutionTimeNanos() { return executionTimeNanos; }
+    public Map<String, Long> getStats() { return stats; }
+    public long getStat(String name) { return stats.getOrDefault(name, 0L); }
+    public List<MSTComponent> getComponents() { return components; }
+}
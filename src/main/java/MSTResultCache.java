@@ -0,0 +1,225 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+// Bounded LRU cache of MST results keyed by graph content and engine configuration, so a graph that
+// is submitted again, under any id, is not solved again. Which tree an engine returns among equal-cost
+// ones, and for Prim which component, depends on vertex and edge order, so the content includes that
+// order. Size is counted in result edges; least recently used results are evicted once the total
+// exceeds the capacity. With a directory, every result is also written there and an in-memory miss
+// falls back to the file, so later runs reuse earlier ones; a failed write only loses that file.
+// Safe for concurrent use.
+public class MSTResultCache {
+    public static final long DEFAULT_MAX_EDGES = 1L << 22;
+
+    // Persisted results are "<fingerprint>-<engine cache key>.mst"
+    private static final String EXTENSION = ".mst";
+    private static final int FILE_MAGIC = 0x4D535452; // "MSTR"
+    private static final int FILE_VERSION = 1;
+
+    // Seeds of the two independent 64-bit halves of a fingerprint
+    private static final long SEED_LOW = 0x9E3779B97F4A7C15L;
+    private static final long SEED_HIGH = 0xC2B2AE3D27D4EB4FL;
+
+    private final long maxEdges;
+    private final File directory;
+    // Access-ordered, so iteration starts at the least recently used result
+    private final LinkedHashMap<String, MSTResult> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long edgeCount;
+    private long hits;
+    private long diskHits;
+    private long misses;
+    private long evictions;
+    private long writeFailures;
+
+    // A capacity of 0 keeps nothing in memory, which with a directory gives a disk-only cache
+    public MSTResultCache(long maxEdges, File directory) throws IOException {
+        if (maxEdges < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative, got " + maxEdges);
+        }
+        this.maxEdges = maxEdges;
+        this.directory = directory;
+        if (directory != null) {
+            Files.createDirectories(directory.toPath());
+        }
+    }
+
+    // 128-bit hash of the vertex names in vertex order and of the edge (from, to, weight) triples in
+    // edge order, i.e. of everything an engine's result depends on; the graph id does not count
+    public static String fingerprint(CompactGraph graph) {
+        int vertexCount = graph.getVertexCount();
+        int edgeCount = graph.getEdgeCount();
+        long low = mix(SEED_LOW ^ vertexCount) ^ edgeCount;
+        long high = mix(SEED_HIGH ^ edgeCount) ^ vertexCount;
+        for (int v = 0; v < vertexCount; v++) {
+            long name = hash(graph.getVertexName(v));
+            low = mix(low ^ name);
+            high = mix(high + name * SEED_LOW);
+        }
+        for (int e = 0; e < edgeCount; e++) {
+            long endpoints = ((long) graph.getEdgeFrom(e) << 32) | graph.getEdgeTo(e);
+            int weight = graph.getEdgeWeight(e);
+            low = mix(mix(low ^ endpoints) ^ weight);
+            high = mix(mix(high + endpoints * SEED_LOW) + weight);
+        }
+        return String.format("%016x%016x", high, low);
+    }
+
+    // Returns the cached result of engine on the graph with this fingerprint, or null
+    public synchronized MSTResult get(String fingerprint, MSTAlgorithm engine) {
+        String key = fingerprint + "-" + engine.getCacheKey();
+        MSTResult result = entries.get(key);
+        if (result == null && directory != null) {
+            result = read(new File(directory, key + EXTENSION));
+            if (result != null) {
+                diskHits++;
+                insert(key, result);
+            }
+        }
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    // A result that cannot be written to the directory, e.g. on a full disk, stays in memory only
+    public synchronized void put(String fingerprint, MSTAlgorithm engine, MSTResult result) {
+        String key = fingerprint + "-" + engine.getCacheKey();
+        insert(key, result);
+        if (directory != null) {
+            try {
+                write(new File(directory, key + EXTENSION), result);
+            } catch (IOException e) {
+                writeFailures++;
+                System.err.println("Could not write cached result " + key + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Getters; hits include results read back from the directory
+    public synchronized long getHits() { return hits; }
+    public synchronized long getDiskHits() { return diskHits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+    public synchronized long getWriteFailures() { return writeFailures; }
+    public synchronized int getEntryCount() { return entries.size(); }
+    public synchronized long getEdgeCount() { return edgeCount; }
+    public long getMaxEdges() { return maxEdges; }
+    public File getDirectory() { return directory; }
+
+    private void insert(String key, MSTResult result) {
+        MSTResult previous = entries.put(key, result);
+        if (previous != null) {
+            edgeCount -= size(previous);
+        }
+        edgeCount += size(result);
+        Iterator<MSTResult> eldest = entries.values().iterator();
+        while (edgeCount > maxEdges && eldest.hasNext()) {
+            edgeCount -= size(eldest.next());
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    // Components of a forest share their edges with the result, so only the result's edges count
+    private static long size(MSTResult result) {
+        return 1 + result.getMstEdges().size();
+    }
+
+    // Written to a temporary file and moved into place, so readers never see a partial result
+    private static void write(File file, MSTResult result) throws IOException {
+        File temp = File.createTempFile("mst-result-", ".tmp", file.getParentFile());
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeInt(FILE_VERSION);
+                out.writeInt(result.getTotalCost());
+                out.writeInt(result.getOperationsCount());
+                out.writeLong(result.getExecutionTimeNanos());
+                writeEdges(out, result.getMstEdges());
+                out.writeInt(result.getStats().size());
+                for (Map.Entry<String, Long> stat : result.getStats().entrySet()) {
+                    out.writeUTF(stat.getKey());
+                    out.writeLong(stat.getValue());
+                }
+                out.writeInt(result.getComponents().size());
+                for (MSTComponent component : result.getComponents()) {
+                    out.writeInt(component.getComponentId());
+                    out.writeInt(component.getVertexCount());
+                    out.writeUTF(component.getAlgorithm());
+                    writeEdges(out, component.getMstEdges());
+                    out.writeInt(component.getTotalCost());
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+    }
+
+    // A missing, truncated or foreign file is a miss; the next put overwrites it
+    private static MSTResult read(File file) {
+        if (!file.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION) return null;
+            int totalCost = in.readInt();
+            int operations = in.readInt();
+            long executionTimeNanos = in.readLong();
+            List<Edge> edges = readEdges(in);
+            int statCount = in.readInt();
+            Map<String, Long> stats = new LinkedHashMap<>();
+            for (int i = 0; i < statCount; i++) {
+                stats.put(in.readUTF(), in.readLong());
+            }
+            int componentCount = in.readInt();
+            List<MSTComponent> components = new ArrayList<>(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                int componentId = in.readInt();
+                int vertexCount = in.readInt();
+                String algorithm = in.readUTF();
+                List<Edge> componentEdges = readEdges(in);
+                components.add(new MSTComponent(componentId, vertexCount, algorithm, componentEdges, in.readInt()));
+            }
+            return new MSTResult(edges, totalCost, operations, executionTimeNanos, stats, components);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeEdges(DataOutputStream out, List<Edge> edges) throws IOException {
+        out.writeInt(edges.size());
+        for (Edge edge : edges) {
+            out.writeUTF(edge.getFrom());
+            out.writeUTF(edge.getTo());
+            out.writeInt(edge.getWeight());
+        }
+    }
+
+    private static List<Edge> readEdges(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<Edge> edges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            edges.add(new Edge(in.readUTF(), in.readUTF(), in.readInt()));
+        }
+        return edges;
+    }
+
+    // 64-bit FNV-1a over the UTF-16 code units, finished with mix
+    private static long hash(String name) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h = (h ^ name.charAt(i)) * 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    // SplitMix64 finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
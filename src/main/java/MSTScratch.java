@@ -0,0 +1,83 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Reusable working arrays for the MST engines. Buffers only ever grow, so after the largest
+// graph has been seen, back-to-back solves on the same thread allocate nothing here.
+// Arrays may be longer than requested; callers must bound loops by their own sizes.
+// An instance must only be used by one solve at a time.
+public class MSTScratch {
+    private static final int SLOTS = 4;
+    private static final ThreadLocal<MSTScratch> PER_THREAD = ThreadLocal.withInitial(MSTScratch::new);
+
+    private final int[][] ints = new int[SLOTS][0];
+    private final boolean[][] flags = new boolean[SLOTS][0];
+    private long[] longs = new long[0];
+    private AtomicLongArray atomicLongs = new AtomicLongArray(0);
+    private IndexedMinHeap heap;
+    private DisjointSet disjointSet;
+
+    public static MSTScratch forCurrentThread() {
+        return PER_THREAD.get();
+    }
+
+    // Int buffer in the given slot with unspecified contents
+    public int[] ints(int slot, int length) {
+        if (ints[slot].length < length) {
+            ints[slot] = new int[length];
+        }
+        return ints[slot];
+    }
+
+    // Int buffer in the given slot with [0, length) zeroed
+    public int[] clearedInts(int slot, int length) {
+        int[] buffer = ints(slot, length);
+        Arrays.fill(buffer, 0, length, 0);
+        return buffer;
+    }
+
+    // Boolean buffer in the given slot with [0, length) cleared
+    public boolean[] flags(int slot, int length) {
+        if (flags[slot].length < length) {
+            flags[slot] = new boolean[length];
+        } else {
+            Arrays.fill(flags[slot], 0, length, false);
+        }
+        return flags[slot];
+    }
+
+    // Long buffer with unspecified contents
+    public long[] longs(int length) {
+        if (longs.length < length) {
+            longs = new long[length];
+        }
+        return longs;
+    }
+
+    // Atomic long buffer with unspecified contents
+    public AtomicLongArray atomicLongs(int length) {
+        if (atomicLongs.length() < length) {
+            atomicLongs = new AtomicLongArray(length);
+        }
+        return atomicLongs;
+    }
+
+    // Empty heap able to hold ids 0..capacity-1
+    public IndexedMinHeap heap(int capacity, int arity) {
+        if (heap == null || heap.getArity() != arity) {
+            heap = new IndexedMinHeap(capacity, arity);
+        } else {
+            heap.reset(capacity);
+        }
+        return heap;
+    }
+
+    // Disjoint set of count singletons
+    public DisjointSet disjointSet(int count) {
+        if (disjointSet == null) {
+            disjointSet = new DisjointSet(count);
+        } else {
+            disjointSet.reset(count);
+        }
+        return disjointSet;
+    }
+}
@@ -0,0 +1,64 @@
+// Picks an MST engine from vertex count and edge density.
+// Dense graphs go to array-scan Prim, very sparse ones to Kruskal, everything else to heap Prim.
+// Engines are stateless, so the selector and the engines it returns may be shared across threads.
+public class MSTSelector {
+    public static final double DEFAULT_DENSE_THRESHOLD = 0.25;
+    public static final double DEFAULT_SPARSE_AVERAGE_DEGREE = 4.0;
+    public static final int DEFAULT_SMALL_GRAPH_VERTICES = 16;
+
+    private final double denseThreshold;
+    private final double sparseAverageDegree;
+    private final int smallGraphVertices;
+
+    private final MSTAlgorithm heapPrim = new PrimMST();
+    private final MSTAlgorithm densePrim = new DensePrimMST();
+    private final MSTAlgorithm kruskal = new KruskalMST();
+
+    public MSTSelector() {
+        this(DEFAULT_DENSE_THRESHOLD, DEFAULT_SPARSE_AVERAGE_DEGREE, DEFAULT_SMALL_GRAPH_VERTICES);
+    }
+
+    // denseThreshold is the fraction of V(V-1)/2 edges at which array Prim takes over;
+    // sparseAverageDegree is the 2E/V at or below which Kruskal is preferred;
+    // graphs with at most smallGraphVertices vertices always use array Prim
+    public MSTSelector(double denseThreshold, double sparseAverageDegree, int smallGraphVertices) {
+        if (denseThreshold < 0 || denseThreshold > 1) {
+            throw new IllegalArgumentException("Dense threshold must be in [0, 1], got " + denseThreshold);
+        }
+        if (sparseAverageDegree < 0) {
+            throw new IllegalArgumentException("Sparse average degree must be non-negative, got " + sparseAverageDegree);
+        }
+        this.denseThreshold = denseThreshold;
+        this.sparseAverageDegree = sparseAverageDegree;
+        this.smallGraphVertices = smallGraphVertices;
+    }
+
+    // Fraction of possible undirected edges that are present, in [0, 1]
+    public static double density(int vertexCount, int edgeCount) {
+        long maxEdges = (long) vertexCount * (vertexCount - 1) / 2;
+        return maxEdges > 0 ? (double) edgeCount / maxEdges : 0;
+    }
+
+    public MSTAlgorithm select(int vertexCount, int edgeCount) {
+        if (vertexCount <= smallGraphVertices) {
+            return densePrim;
+        }
+        if (density(vertexCount, edgeCount) >= denseThreshold) {
+            return densePrim;
+        }
+        double averageDegree = 2.0 * edgeCount / vertexCount;
+        if (averageDegree <= sparseAverageDegree) {
+            return kruskal;
+        }
+        return heapPrim;
+    }
+
+    public MSTAlgorithm select(CompactGraph graph) {
+        return select(graph.getVertexCount(), graph.getEdgeCount());
+    }
+
+    // Getters
+    public double getDenseThreshold() { return denseThreshold; }
+    public double getSparseAverageDegree() { return sparseAverageDegree; }
+    public int getSmallGraphVertices() { return smallGraphVertices; }
+}
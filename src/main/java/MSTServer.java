@@ -0,0 +1,170 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Long-running service mode. Each request is one line holding a single graph in the GraphInput
+// shape; each answer is one line holding the MSTOutput shape plus graph_id, written in request order.
+// Disconnected graphs are answered with a spanning forest and its per-component trees.
+// Requests from all connections share one worker pool, and workers keep their per-thread scratch,
+// so a warm server solves without re-JITting or reallocating working arrays.
+public class MSTServer implements Closeable {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    // Marks the end of a connection's response queue
+    private static final Future<String> END = CompletableFuture.completedFuture(null);
+
+    private final SpanningForest forest;
+    private final ExecutorService workers;
+    private final ExecutorService connections = Executors.newCachedThreadPool();
+    private final int maxInFlight;
+    private volatile ServerSocket serverSocket;
+
+    public MSTServer(MSTSelector selector, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Server needs at least one worker thread, got " + threads);
+        }
+        this.forest = new SpanningForest(selector);
+        this.workers = Executors.newFixedThreadPool(threads);
+        // Enough queued requests to keep every worker busy while the responder catches up
+        this.maxInFlight = 2 * threads;
+    }
+
+    // Serves one request stream until end of input, e.g. stdin/stdout or a socket
+    public void serve(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(maxInFlight + 1);
+        Future<IOException> responder = connections.submit(() -> respond(pending, writer));
+
+        boolean ended = false;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String request = line;
+                pending.put(workers.submit(() -> handle(request)));
+            }
+            pending.put(END);
+            ended = true;
+            IOException failure = responder.get();
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException("Responder failed", e.getCause());
+        } finally {
+            // Without END, e.g. after a reset socket, the responder would wait on the queue forever
+            if (!ended) {
+                responder.cancel(true);
+            }
+        }
+    }
+
+    // Writes answers in request order, flushing whenever it has caught up with the workers.
+    // After a write failure, or a request that died with an Error such as OutOfMemoryError, it keeps
+    // draining so the reader never blocks on a full queue.
+    private IOException respond(BlockingQueue<Future<String>> pending, Writer writer) throws Exception {
+        IOException failure = null;
+        Future<String> next;
+        while ((next = pending.take()) != END) {
+            String answer;
+            try {
+                answer = next.get();
+            } catch (ExecutionException e) {
+                answer = error(e.getCause());
+            }
+            if (failure != null) continue;
+            try {
+                writer.write(answer);
+                writer.write('\n');
+                if (pending.isEmpty()) {
+                    writer.flush();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure == null) {
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        return failure;
+    }
+
+    // Solves one request line; malformed requests get an error line instead of a result
+    String handle(String request) {
+        try {
+            CompactGraph graph = GraphStreamReader.parseGraph(request);
+            // Connected graphs report the engine that solved them, disconnected ones the forest
+            MSTResult result = forest.findMST(graph);
+            List<MSTComponent> components = result.getComponents();
+            String algorithm = components.size() == 1 ? components.get(0).getAlgorithm() : forest.getName();
+            ObjectNode answer = objectMapper.createObjectNode();
+            answer.put("graph_id", graph.getId());
+            answer.setAll((ObjectNode) objectMapper.valueToTree(Main.convertToMSTOutput(algorithm, result)));
+            return objectMapper.writeValueAsString(answer);
+        } catch (Exception e) {
+            return error(e);
+        }
+    }
+
+    private static String error(Throwable failure) {
+        ObjectNode error = objectMapper.createObjectNode();
+        // Errors such as StackOverflowError often have no message, so fall back to the type
+        error.put("error", failure.getMessage() != null ? failure.getMessage() : failure.toString());
+        return error.toString();
+    }
+
+    // Accepts local connections on the given port until closed; each connection is served independently
+    public void listen(int port) throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) break;
+                throw e;
+            }
+            connections.execute(() -> {
+                try (Socket client = socket) {
+                    serve(client.getInputStream(), client.getOutputStream());
+                } catch (IOException e) {
+                    System.err.println("Connection " + socket.getRemoteSocketAddress() + " failed: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    // Local port actually bound by listen, useful when listening on port 0
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+        workers.shutdownNow();
+        connections.shutdownNow();
+    }
+}
@@ -0,0 +1,34 @@
+import java.util.*;
+
+// Outcome of one DynamicMST update: the tree edges that left and joined the MST, and the new total cost.
+// A weight change on a tree edge shows up as the old edge removed and the re-weighted edge added.
+public class MSTUpdate {
+    private List<Edge> addedEdges;
+    private List<Edge> removedEdges;
+    private int totalCost;
+    private int operationsCount;
+    // Wall-clock time of the update in nanoseconds
+    private long executionTimeNanos;
+
+    public MSTUpdate(List<Edge> addedEdges, List<Edge> removedEdges, int totalCost,
+                     int operationsCount, long executionTimeNanos) {
+        this.addedEdges = addedEdges;
+        this.removedEdges = removedEdges;
+        this.totalCost = totalCost;
+        this.operationsCount = operationsCount;
+        this.executionTimeNanos = executionTimeNanos;
+    }
+
+    // Getters
+    public List<Edge> getAddedEdges() { return addedEdges; }
+    public List<Edge> getRemovedEdges() { return removedEdges; }
+    public int getTotalCost() { return totalCost; }
+    public int getOperationsCount() { return operationsCount; }
+    // Whole milliseconds, which most updates round down to 0; use getExecutionTimeNanos to compare updates
+    public long getExecutionTime() { return executionTimeNanos / 1_000_000; }
+    public long getExecutionTimeNanos() { return executionTimeNanos; }
+
+    public boolean isTreeChanged() {
+        return !addedEdges.isEmpty() || !removedEdges.isEmpty();
+    }
+}
@@ -1,18 +1,52 @@
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class Main {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
-    static {
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-    }
+    private static MSTSelector selector = new MSTSelector();
+    // Solves disconnected graphs component by component with the selector's engines
+    private static SpanningForest forest = new SpanningForest(selector);
+    // Engines are stateless and shared by all worker threads
+    private static final PrimMST prim = new PrimMST();
+    private static KruskalMST kruskal = new KruskalMST(KruskalMST.SortStrategy.FILTER);
+    private static final BoruvkaMST boruvka = new BoruvkaMST();
+    // Prim alone spans only vertex 0's component, so disconnected graphs get Prim per component
+    private static final SpanningForest primForest = new SpanningForest(prim);
+    private static boolean prettyOutput = true;
+    private static List<String> inputOverrides = new ArrayList<>();
+    // Worker threads for batch mode; 1 keeps the original sequential behaviour
+    private static int threads = 1;
+    // Service mode: answer requests on stdin/stdout, or on a local port when servePort >= 0
+    private static boolean serve = false;
+    private static int servePort = -1;
+    // Per-graph timing: untimed warm-up solves, then timed solves summarised by TimingStats
+    private static int warmupIterations = 0;
+    private static int measureIterations = 1;
+    // Out-of-core mode: Kruskal over binary files with spilled sorted runs instead of the in-memory engines
+    private static boolean externalKruskal = false;
+    private static int runEdges = ExternalKruskalMST.DEFAULT_RUN_EDGES;
+    private static File spillDirectory = null;
+    // With external Kruskal, copy each graph off-heap first and also solve it with Prim; null keeps streaming
+    private static OffHeapEdgeStore.Backing offHeap = null;
+    // Results keyed by graph content, so resubmitted graphs are not solved again; null disables it
+    private static MSTResultCache cache = null;
 
     public static void main(String[] args) {
+        parseOptions(args);
+
+        if (serve) {
+            runServer();
+            return;
+        }
+
         String[] inputFiles = {
                 "input/ass_3_input.json",      // Original test graphs
                 "input/small_graphs.json",     // 5 graphs, up to 50 vertices
@@ -20,7 +54,26 @@ public class Main {
                 "input/large_graphs.json",     // 10 graphs, up to 1000 vertices
                 "input/extra_large_graphs.json" // 5 graphs, up to 3000 vertices
         };
+        if (!inputOverrides.isEmpty()) {
+            inputFiles = inputOverrides.toArray(new String[0]);
+        }
+
+        if (externalKruskal) {
+            runExternalKruskal(inputFiles);
+            return;
+        }
+
+        List<PerformanceRecord> allRecords = threads > 1 ? processFilesInParallel(inputFiles) : processFiles(inputFiles);
+
+        // Generate comprehensive performance report
+        try {
+            generatePerformanceReport(allRecords);
+        } catch (Exception e) {
+            System.err.println("Error generating report: " + e.getMessage());
+        }
+    }
 
+    private static List<PerformanceRecord> processFiles(String[] inputFiles) {
         List<PerformanceRecord> allRecords = new ArrayList<>();
 
         for (String inputFile : inputFiles) {
@@ -31,119 +84,533 @@ public class Main {
                 System.out.println("Skipping " + inputFile + ": " + e.getMessage());
             }
         }
+        return allRecords;
+    }
 
-        // Generate comprehensive performance report
+    // Batch mode: files run concurrently on their own pool and share one bounded pool for graphs.
+    // Each file's console output is buffered and printed, with its records, in input file order.
+    private static List<PerformanceRecord> processFilesInParallel(String[] inputFiles) {
+        ExecutorService graphPool = Executors.newFixedThreadPool(threads);
+        ExecutorService filePool = Executors.newFixedThreadPool(Math.min(threads, inputFiles.length));
         try {
-            generatePerformanceReport(allRecords);
-        } catch (Exception e) {
-            System.err.println("Error generating report: " + e.getMessage());
+            List<Future<List<PerformanceRecord>>> futures = new ArrayList<>();
+            List<ByteArrayOutputStream> logs = new ArrayList<>();
+            for (String inputFile : inputFiles) {
+                ByteArrayOutputStream log = new ByteArrayOutputStream();
+                PrintStream out = new PrintStream(log, true, StandardCharsets.UTF_8);
+                logs.add(log);
+                futures.add(filePool.submit(() -> processFile(inputFile, graphPool, out)));
+            }
+
+            List<PerformanceRecord> allRecords = new ArrayList<>();
+            for (int i = 0; i < inputFiles.length; i++) {
+                try {
+                    List<PerformanceRecord> records = futures.get(i).get();
+                    System.out.print(logs.get(i).toString(StandardCharsets.UTF_8));
+                    allRecords.addAll(records);
+                } catch (ExecutionException e) {
+                    System.out.println("Skipping " + inputFiles[i] + ": " + e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return allRecords;
+        } finally {
+            filePool.shutdownNow();
+            graphPool.shutdownNow();
         }
     }
 
-    public static List<PerformanceRecord> processFile(String inputFile) throws Exception {
-        System.out.println("\n" + "=".repeat(80));
-        System.out.println("Processing: " + inputFile);
-        System.out.println("=".repeat(80));
+    // Command line options: --dense-threshold X, --sparse-degree X, --small-vertices N, --compact-output,
+    // --input FILE (repeatable; .json or .bin), --convert JSON BIN (convert and exit), --threads N,
+    // --serve (line protocol on stdin/stdout), --serve-port N (line protocol on a local socket),
+    // --warmup N (untimed solves per engine and graph), --iterations N (timed solves per engine and graph),
+    // --external-kruskal (out-of-core Kruskal over .bin inputs), --run-edges N, --spill-dir DIR,
+    // --off-heap direct|mapped (with --external-kruskal: off-heap copy solved by Kruskal and Prim),
+    // --kruskal-sort full|filter, --parallel-sort-threshold N (edges at which Kruskal sorts in parallel),
+    // --cache-edges N (result cache capacity in MST edges), --cache-dir DIR (persist cached results);
+    // either cache option turns the cache on
+    private static void parseOptions(String[] args) {
+        double denseThreshold = MSTSelector.DEFAULT_DENSE_THRESHOLD;
+        double sparseDegree = MSTSelector.DEFAULT_SPARSE_AVERAGE_DEGREE;
+        int smallVertices = MSTSelector.DEFAULT_SMALL_GRAPH_VERTICES;
+        KruskalMST.SortStrategy kruskalSort = KruskalMST.SortStrategy.FILTER;
+        int parallelSortThreshold = KruskalMST.DEFAULT_PARALLEL_SORT_THRESHOLD;
+        boolean cached = false;
+        long cacheEdges = MSTResultCache.DEFAULT_MAX_EDGES;
+        File cacheDirectory = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dense-threshold":
+                    denseThreshold = Double.parseDouble(args[++i]);
+                    break;
+                case "--sparse-degree":
+                    sparseDegree = Double.parseDouble(args[++i]);
+                    break;
+                case "--small-vertices":
+                    smallVertices = Integer.parseInt(args[++i]);
+                    break;
+                case "--compact-output":
+                    prettyOutput = false;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    if (threads < 1) {
+                        throw new IllegalArgumentException("--threads must be at least 1");
+                    }
+                    break;
+                case "--input":
+                    inputOverrides.add(args[++i]);
+                    break;
+                case "--serve":
+                    serve = true;
+                    break;
+                case "--serve-port":
+                    serve = true;
+                    servePort = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmupIterations = Integer.parseInt(args[++i]);
+                    if (warmupIterations < 0) {
+                        throw new IllegalArgumentException("--warmup must not be negative");
+                    }
+                    break;
+                case "--iterations":
+                    measureIterations = Integer.parseInt(args[++i]);
+                    if (measureIterations < 1) {
+                        throw new IllegalArgumentException("--iterations must be at least 1");
+                    }
+                    break;
+                case "--external-kruskal":
+                    externalKruskal = true;
+                    break;
+                case "--run-edges":
+                    runEdges = Integer.parseInt(args[++i]);
+                    break;
+                case "--spill-dir":
+                    spillDirectory = new File(args[++i]);
+                    break;
+                case "--off-heap":
+                    offHeap = OffHeapEdgeStore.Backing.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                    break;
+                case "--kruskal-sort":
+                    kruskalSort = KruskalMST.SortStrategy.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                    break;
+                case "--parallel-sort-threshold":
+                    parallelSortThreshold = Integer.parseInt(args[++i]);
+                    break;
+                case "--cache-edges":
+                    cached = true;
+                    cacheEdges = Long.parseLong(args[++i]);
+                    break;
+                case "--cache-dir":
+                    cached = true;
+                    cacheDirectory = new File(args[++i]);
+                    break;
+                case "--convert":
+                    convertToBinary(args[++i], args[++i]);
+                    System.exit(0);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
 
-        InputData inputData = JsonUtils.readInput(inputFile);
-        List<Graph> graphs = JsonUtils.convertToGraphs(inputData);
+        kruskal = new KruskalMST(kruskalSort, parallelSortThreshold);
+        if (cached) {
+            try {
+                cache = new MSTResultCache(cacheEdges, cacheDirectory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        selector = new MSTSelector(denseThreshold, sparseDegree, smallVertices);
+        forest = new SpanningForest(selector);
+    }
 
-        System.out.println("Loaded " + graphs.size() + " graphs");
+    private static void runServer() {
+        try (MSTServer server = new MSTServer(selector, threads)) {
+            if (servePort >= 0) {
+                System.err.println("Serving MST requests on localhost:" + servePort);
+                server.listen(servePort);
+            } else {
+                server.serve(System.in, System.out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-        List<GraphResult> results = new ArrayList<>();
-        List<PerformanceRecord> records = new ArrayList<>();
-        PrimMST prim = new PrimMST();
-        KruskalMST kruskal = new KruskalMST();
+    // Streams each graph's edges from disk, so graphs larger than the heap can be solved.
+    // Only binary files are streamed; JSON inputs can be converted first with --convert.
+    private static void runExternalKruskal(String[] inputFiles) {
+        ExternalKruskalMST external = new ExternalKruskalMST(runEdges, ExternalKruskalMST.DEFAULT_MERGE_FAN_IN, spillDirectory);
+        File outputDir = new File("output");
+        if (!outputDir.exists()) outputDir.mkdirs();
 
-        for (Graph graph : graphs) {
-            int maxPossibleEdges = graph.getVertexCount() * (graph.getVertexCount() - 1) / 2;
-            double density = (graph.getEdgeCount() * 100.0) / maxPossibleEdges;
+        for (String inputFile : inputFiles) {
+            if (!inputFile.endsWith(BinaryGraphFile.EXTENSION)) {
+                System.out.println("Skipping " + inputFile + ": external Kruskal reads binary graph files only (see --convert)");
+                continue;
+            }
+            String outputFile = stripExtension(inputFile.replace("input/", "output/")) + "_external_output.json";
+            try (BinaryGraphReader reader = new BinaryGraphReader(new File(inputFile));
+                 ResultStreamWriter output = new ResultStreamWriter(new File(outputFile), prettyOutput)) {
+                System.out.println("Processing: " + inputFile);
+                for (int position = 0; position < reader.getGraphCount(); position++) {
+                    try (OffHeapEdgeStore store = offHeap != null
+                            ? OffHeapEdgeStore.copyOf(reader.streamGraph(position), offHeap, spillDirectory) : null) {
+                        EdgeStream edges = store != null ? store : reader.streamGraph(position);
+                        solveExternal(external, edges, store, output);
+                    }
+                }
+                System.out.println("Results written to: " + outputFile);
+            } catch (IOException e) {
+                System.out.println("Skipping " + inputFile + ": " + e.getMessage());
+            }
+        }
+    }
 
-            System.out.println("\n--- Graph " + graph.getId() + " ---");
-            System.out.printf("Vertices: %d, Edges: %d (Density: %.1f%%)%n",
-                    graph.getVertexCount(), graph.getEdgeCount(), density);
+    // Solves one streamed graph; with an off-heap store Prim solves it too and the costs are cross-checked
+    private static void solveExternal(ExternalKruskalMST external, EdgeStream edges, OffHeapEdgeStore store,
+                                      ResultStreamWriter output) throws IOException {
+        MSTResult result = external.findMST(edges);
+        System.out.printf("Graph %d: vertices=%d edges=%d cost=%d time=%.3fms runs=%d spilled=%d bytes merge passes=%d scanned=%d%n",
+                edges.getId(), edges.getVertexCount(), edges.getEdgeCount(), result.getTotalCost(),
+                result.getExecutionTimeNanos() / 1e6,
+                result.getStat(ExternalKruskalMST.STAT_RUNS),
+                result.getStat(ExternalKruskalMST.STAT_BYTES_SPILLED),
+                result.getStat(ExternalKruskalMST.STAT_MERGE_PASSES),
+                result.getStat(ExternalKruskalMST.STAT_EDGES_SCANNED));
+        MSTOutput kruskalOutput = convertToMSTOutput(external.getName(), result);
+
+        MSTOutput primOutput = null;
+        if (store != null) {
+            MSTResult primResult = prim.findMST(store);
+            System.out.printf("         off-heap (%s) Prim: cost=%d time=%.3fms%n",
+                    store.getBacking().name().toLowerCase(Locale.ROOT), primResult.getTotalCost(),
+                    primResult.getExecutionTimeNanos() / 1e6);
+            if (primResult.getTotalCost() != result.getTotalCost()) {
+                System.err.println("❌ COST MISMATCH! Prim: " + primResult.getTotalCost()
+                        + ", Kruskal: " + result.getTotalCost());
+            }
+            primOutput = convertToMSTOutput(prim.getName(), primResult);
+        }
+        int edgeCount = (int) Math.min(edges.getEdgeCount(), Integer.MAX_VALUE);
+        output.write(new GraphResult(edges.getId(), new InputStats(edges.getVertexCount(), edgeCount),
+                primOutput, kruskalOutput, null, kruskalOutput));
+    }
 
-            MSTResult primResult = prim.findMST(graph);
-            MSTResult kruskalResult = kruskal.findMST(graph);
+    private static void convertToBinary(String jsonPath, String binaryPath) {
+        try {
+            int count = BinaryGraphFile.convert(jsonPath, binaryPath);
+            System.out.println("Converted " + count + " graphs from " + jsonPath + " to " + binaryPath);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
-            // Verify correctness
-            if (primResult.getTotalCost() != kruskalResult.getTotalCost()) {
-                System.err.println("❌ COST MISMATCH! Prim: " + primResult.getTotalCost() +
-                        ", Kruskal: " + kruskalResult.getTotalCost());
-            }
+    public static List<PerformanceRecord> processFile(String inputFile) throws Exception {
+        return processFile(inputFile, null, System.out);
+    }
 
-            System.out.printf("Prim:    cost=%-6d time=%-8.3fms ops=%-8d%n",
-                    primResult.getTotalCost(),
-                    primResult.getExecutionTime() / 1000.0,
-                    primResult.getOperationsCount());
-            System.out.printf("Kruskal: cost=%-6d time=%-8.3fms ops=%-8d%n",
-                    kruskalResult.getTotalCost(),
-                    kruskalResult.getExecutionTime() / 1000.0,
-                    kruskalResult.getOperationsCount());
-
-            if (primResult.getTotalCost() == kruskalResult.getTotalCost()) {
-                System.out.println("✅ Algorithms agree on MST cost");
-            }
+    // Solves every graph in the file. With an executor, graphs are solved concurrently but
+    // results are written and recorded in input order; at most 2x threads graphs are in flight.
+    public static List<PerformanceRecord> processFile(String inputFile, ExecutorService executor,
+                                                      PrintStream out) throws Exception {
+        out.println("\n" + "=".repeat(80));
+        out.println("Processing: " + inputFile);
+        out.println("=".repeat(80));
+
+        String dataset = stripExtension(inputFile.replace("input/", ""));
+        List<PerformanceRecord> records = new ArrayList<>();
 
-            double timeRatio = kruskalResult.getExecutionTime() > 0 ?
-                    (double) primResult.getExecutionTime() / kruskalResult.getExecutionTime() : 0;
-            System.out.printf("Time Ratio (Prim/Kruskal): %.3f%n", timeRatio);
-
-            InputStats stats = new InputStats(graph.getVertexCount(), graph.getEdgeCount());
-            MSTOutput primOutput = convertToMSTOutput(primResult);
-            MSTOutput kruskalOutput = convertToMSTOutput(kruskalResult);
-
-            results.add(new GraphResult(graph.getId(), stats, primOutput, kruskalOutput));
-
-            // Store performance record with density
-            records.add(new PerformanceRecord(
-                    inputFile.replace("input/", "").replace(".json", ""),
-                    graph.getId(),
-                    graph.getVertexCount(),
-                    graph.getEdgeCount(),
-                    density,
-                    primResult.getTotalCost(),
-                    kruskalResult.getTotalCost(),
-                    primResult.getExecutionTime(),
-                    kruskalResult.getExecutionTime(),
-                    primResult.getOperationsCount(),
-                    kruskalResult.getOperationsCount()
-            ));
-        }
-
-        // Write output
-        String outputFile = inputFile.replace("input/", "output/").replace(".json", "_output.json");
+        // Results are streamed to the output file as each graph finishes
+        String outputFile = stripExtension(inputFile.replace("input/", "output/")) + "_output.json";
         File outputDir = new File("output");
         if (!outputDir.exists()) outputDir.mkdirs();
 
-        OutputData outputData = new OutputData(results);
-        objectMapper.writeValue(new File(outputFile), outputData);
+        int processed;
+        try (GraphSource graphs = GraphSource.open(inputFile);
+             ResultStreamWriter output = new ResultStreamWriter(new File(outputFile), prettyOutput)) {
+            Deque<Future<GraphOutcome>> inFlight = new ArrayDeque<>();
+            // Sources parse in hasNext, so the load phase spans hasNext and next
+            long loadStart = System.nanoTime();
+            while (graphs.hasNext()) {
+                CompactGraph graph = graphs.next();
+                // Parsing only; building the adjacency arrays is reported as its own phase
+                long loadNanos = System.nanoTime() - loadStart - graph.getAdjacencyBuildNanos();
+                if (executor == null) {
+                    inFlight.add(CompletableFuture.completedFuture(solveGraph(dataset, graph, loadNanos)));
+                } else {
+                    inFlight.add(executor.submit(() -> solveGraph(dataset, graph, loadNanos)));
+                }
+                while (inFlight.size() > 2 * threads) {
+                    emit(inFlight.poll().get(), output, records, out);
+                }
+                loadStart = System.nanoTime();
+            }
+            while (!inFlight.isEmpty()) {
+                emit(inFlight.poll().get(), output, records, out);
+            }
+            processed = output.getCount();
+        }
 
-        System.out.println("Results written to: " + outputFile);
+        out.println("Processed " + processed + " graphs");
+        out.println("Results written to: " + outputFile);
         return records;
     }
 
-    private static MSTOutput convertToMSTOutput(MSTResult result) {
+    private static void emit(GraphOutcome outcome, ResultStreamWriter output,
+                             List<PerformanceRecord> records, PrintStream out) throws IOException {
+        out.print(outcome.log);
+        if (!outcome.errors.isEmpty()) {
+            System.err.print(outcome.errors);
+        }
+        output.write(outcome.result);
+        records.add(outcome.record);
+    }
+
+    // Runs every engine on one graph; console text is buffered so concurrent graphs don't interleave
+    static GraphOutcome solveGraph(String dataset, CompactGraph graph, long loadNanos) {
+        StringWriter logBuffer = new StringWriter();
+        PrintWriter log = new PrintWriter(logBuffer);
+        StringBuilder errors = new StringBuilder();
+
+        double density = MSTSelector.density(graph.getVertexCount(), graph.getEdgeCount()) * 100.0;
+
+        log.println("\n--- Graph " + graph.getId() + " ---");
+        log.printf("Vertices: %d, Edges: %d (Density: %.1f%%)%n",
+                graph.getVertexCount(), graph.getEdgeCount(), density);
+
+        // Engines whose result comes from the cache are not run; their timing is the one solve that produced it
+        String fingerprint = cache != null ? MSTResultCache.fingerprint(graph) : null;
+        List<String> reused = new ArrayList<>();
+        // Kruskal and Boruvka give a spanning forest of any graph; Kruskal's edge count tells whether
+        // the graph is connected, and if not Prim is run per component
+        Measurement kruskalRun = measure(kruskal, graph, fingerprint, reused);
+        MSTResult kruskalResult = kruskalRun.result;
+        TimingStats kruskalTiming = kruskalRun.timing;
+        boolean connected = kruskalResult.getMstEdges().size() >= graph.getVertexCount() - 1;
+        Measurement primRun = measure(connected ? prim : primForest, graph, fingerprint, reused);
+        MSTResult primResult = primRun.result;
+        TimingStats primTiming = primRun.timing;
+        Measurement boruvkaRun = measure(boruvka, graph, fingerprint, reused);
+        MSTResult boruvkaResult = boruvkaRun.result;
+        TimingStats boruvkaTiming = boruvkaRun.timing;
+
+        // Run the engine the selector picks, reusing Prim/Kruskal results when it picks one of those;
+        // disconnected graphs get a spanning forest with the selector's engine per component
+        MSTAlgorithm selected = connected ? selector.select(graph.getVertexCount(), graph.getEdgeCount()) : forest;
+        MSTResult selectedResult;
+        if (!connected) {
+            selectedResult = solve(forest, graph, fingerprint, reused);
+        } else if (selected.getName().equals(prim.getName())) {
+            selectedResult = primResult;
+        } else if (selected.getName().equals(kruskal.getName())) {
+            selectedResult = kruskalResult;
+        } else {
+            selectedResult = solve(selected, graph, fingerprint, reused);
+        }
+
+        // Verify correctness
+        if (primResult.getTotalCost() != kruskalResult.getTotalCost()) {
+            errors.append("❌ COST MISMATCH! Prim: ").append(primResult.getTotalCost())
+                    .append(", Kruskal: ").append(kruskalResult.getTotalCost()).append('\n');
+        }
+        if (boruvkaResult.getTotalCost() != kruskalResult.getTotalCost()) {
+            errors.append("❌ COST MISMATCH! Boruvka: ").append(boruvkaResult.getTotalCost())
+                    .append(", Kruskal: ").append(kruskalResult.getTotalCost()).append('\n');
+        }
+        if (selectedResult.getTotalCost() != kruskalResult.getTotalCost()) {
+            errors.append("❌ COST MISMATCH! ").append(selected.getName()).append(": ").append(selectedResult.getTotalCost())
+                    .append(", Kruskal: ").append(kruskalResult.getTotalCost()).append('\n');
+        }
+
+        log.printf("Prim:    cost=%-6d time=%-8.3fms ops=%-8d%s%n",
+                primResult.getTotalCost(),
+                primTiming.getMedianNanos() / 1e6,
+                primResult.getOperationsCount(),
+                spread(primTiming));
+        log.printf("Kruskal: cost=%-6d time=%-8.3fms ops=%-8d%s%n",
+                kruskalResult.getTotalCost(),
+                kruskalTiming.getMedianNanos() / 1e6,
+                kruskalResult.getOperationsCount(),
+                spread(kruskalTiming));
+        log.printf("         edges sorted=%d discarded=%d%s%n",
+                kruskalResult.getStat(KruskalMST.STAT_EDGES_SORTED),
+                kruskalResult.getStat(KruskalMST.STAT_EDGES_DISCARDED),
+                kruskalResult.getStat(KruskalMST.STAT_COUNTING_SORT) == 1 ? " (counting sort)" : "");
+        log.printf("Boruvka: cost=%-6d time=%-8.3fms ops=%-8d%s%n",
+                boruvkaResult.getTotalCost(),
+                boruvkaTiming.getMedianNanos() / 1e6,
+                boruvkaResult.getOperationsCount(),
+                spread(boruvkaTiming));
+        log.printf("Selected: %s (cost=%d ops=%d)%n",
+                selected.getName(), selectedResult.getTotalCost(), selectedResult.getOperationsCount());
+        if (!connected) {
+            log.printf("         components=%d%n", selectedResult.getStat(SpanningForest.STAT_COMPONENTS));
+        }
+        if (!reused.isEmpty()) {
+            log.println("Cached:  " + String.join(", ", reused));
+        }
+        if (MSTMetrics.ENABLED) {
+            log.printf("Phases:  load=%.3fms adjacency=%.3fms kruskal sort=%.3fms kruskal loop=%.3fms prim loop=%.3fms%n",
+                    loadNanos / 1e6, graph.getAdjacencyBuildNanos() / 1e6,
+                    kruskalResult.getStat(MSTMetrics.SORT_NANOS) / 1e6,
+                    kruskalResult.getStat(MSTMetrics.MAIN_LOOP_NANOS) / 1e6,
+                    primResult.getStat(MSTMetrics.MAIN_LOOP_NANOS) / 1e6);
+        }
+
+        if (primResult.getTotalCost() == kruskalResult.getTotalCost()
+                && boruvkaResult.getTotalCost() == kruskalResult.getTotalCost()) {
+            log.println("✅ Algorithms agree on MST cost");
+        }
+
+        double timeRatio = kruskalTiming.getMedianNanos() > 0 ?
+                (double) primTiming.getMedianNanos() / kruskalTiming.getMedianNanos() : 0;
+        log.printf("Time Ratio (Prim/Kruskal): %.3f%n", timeRatio);
+        log.flush();
+
+        InputStats stats = new InputStats(graph.getVertexCount(), graph.getEdgeCount());
+        MSTOutput primOutput = convertToMSTOutput(prim.getName(), primResult);
+        MSTOutput kruskalOutput = convertToMSTOutput(kruskal.getName(), kruskalResult);
+        MSTOutput boruvkaOutput = convertToMSTOutput(boruvka.getName(), boruvkaResult);
+        MSTOutput selectedOutput = convertToMSTOutput(selected.getName(), selectedResult);
+        GraphResult result = new GraphResult(graph.getId(), stats, primOutput, kruskalOutput, boruvkaOutput, selectedOutput);
+
+        // Store performance record with density
+        PerformanceRecord record = new PerformanceRecord(
+                dataset,
+                graph.getId(),
+                graph.getVertexCount(),
+                graph.getEdgeCount(),
+                density,
+                primResult.getTotalCost(),
+                kruskalResult.getTotalCost(),
+                primTiming,
+                kruskalTiming,
+                primResult.getOperationsCount(),
+                kruskalResult.getOperationsCount(),
+                boruvkaResult.getTotalCost(),
+                boruvkaTiming,
+                boruvkaResult.getOperationsCount(),
+                selected.getName()
+        );
+        record.setPhases(loadNanos, graph.getAdjacencyBuildNanos(),
+                kruskalResult.getStat(MSTMetrics.SORT_NANOS),
+                kruskalResult.getStat(MSTMetrics.MAIN_LOOP_NANOS),
+                primResult.getStat(MSTMetrics.MAIN_LOOP_NANOS));
+        record.cached = !reused.isEmpty();
+
+        return new GraphOutcome(logBuffer.toString(), errors.toString(), result, record);
+    }
+
+    // Runs the untimed warm-up solves, then one timed solve per iteration; keeps the last result.
+    // With a fingerprint, a cached result is returned instead, timed by the one solve that produced it,
+    // and its engine name added to reused.
+    private static Measurement measure(MSTAlgorithm engine, CompactGraph graph, String fingerprint,
+                                       List<String> reused) {
+        if (fingerprint != null) {
+            MSTResult cachedResult = cache.get(fingerprint, engine);
+            if (cachedResult != null) {
+                reused.add(engine.getName());
+                return new Measurement(cachedResult, TimingStats.of(new long[]{cachedResult.getExecutionTimeNanos()}));
+            }
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            engine.findMST(graph);
+        }
+        long[] samples = new long[measureIterations];
+        MSTResult result = null;
+        for (int i = 0; i < samples.length; i++) {
+            result = engine.findMST(graph);
+            samples[i] = result.getExecutionTimeNanos();
+        }
+        if (fingerprint != null) {
+            cache.put(fingerprint, engine, result);
+        }
+        return new Measurement(result, TimingStats.of(samples));
+    }
+
+    // One untimed solve, through the cache when there is one
+    private static MSTResult solve(MSTAlgorithm engine, CompactGraph graph, String fingerprint, List<String> reused) {
+        if (fingerprint == null) {
+            return engine.findMST(graph);
+        }
+        MSTResult result = cache.get(fingerprint, engine);
+        if (result != null) {
+            reused.add(engine.getName());
+            return result;
+        }
+        result = engine.findMST(graph);
+        cache.put(fingerprint, engine, result);
+        return result;
+    }
+
+    // Percentile spread for the log line, only worth printing with repeated samples
+    private static String spread(TimingStats timing) {
+        if (timing.getSampleCount() < 2) return "";
+        return String.format(" p90=%.3fms p99=%.3fms sd=%.3fms",
+                timing.getP90Nanos() / 1e6, timing.getP99Nanos() / 1e6, timing.getStdDevNanos() / 1e6);
+    }
+
+    private static String stripExtension(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot > path.lastIndexOf('/') ? path.substring(0, dot) : path;
+    }
+
+    static MSTOutput convertToMSTOutput(String algorithm, MSTResult result) {
         List<EdgeOutput> edgeOutputs = new ArrayList<>();
         for (Edge edge : result.getMstEdges()) {
             edgeOutputs.add(new EdgeOutput(edge.getFrom(), edge.getTo(), edge.getWeight()));
         }
-        return new MSTOutput(edgeOutputs, result.getTotalCost(),
-                result.getOperationsCount(), result.getExecutionTime());
+        MSTOutput output = new MSTOutput(algorithm, edgeOutputs, result.getTotalCost(),
+                result.getOperationsCount(), result.getExecutionTimeNanos() / 1e6);
+
+        // Only spanning forests of disconnected graphs carry a per-component breakdown
+        if (result.getComponents().size() > 1) {
+            List<ComponentOutput> components = new ArrayList<>();
+            for (MSTComponent component : result.getComponents()) {
+                List<EdgeOutput> componentEdges = new ArrayList<>();
+                for (Edge edge : component.getMstEdges()) {
+                    componentEdges.add(new EdgeOutput(edge.getFrom(), edge.getTo(), edge.getWeight()));
+                }
+                components.add(new ComponentOutput(component.getComponentId(), component.getVertexCount(),
+                        component.getAlgorithm(), componentEdges, component.getTotalCost()));
+            }
+            output.setComponents(components);
+        }
+        return output;
     }
 
     public static void generatePerformanceReport(List<PerformanceRecord> records) throws Exception {
         FileWriter writer = new FileWriter("output/performance_comparison.csv");
-        writer.write("Dataset,GraphID,Vertices,Edges,Density,Prim_Cost,Kruskal_Cost,Prim_Time_ms,Kruskal_Time_ms,Prim_Operations,Kruskal_Operations,Time_Ratio,Operations_Ratio\n");
+        writer.write("Dataset,GraphID,Vertices,Edges,Density,Prim_Cost,Kruskal_Cost,Prim_Time_ms,Kruskal_Time_ms,Prim_Operations,Kruskal_Operations,Time_Ratio,Operations_Ratio,Boruvka_Cost,Boruvka_Time_ms,Boruvka_Operations,Selected_Algorithm,Load_ms,Adjacency_Build_ms,Kruskal_Sort_ms,Kruskal_Main_Loop_ms,Prim_Main_Loop_ms,"
+                + "Samples,Prim_P90_ms,Prim_P99_ms,Prim_StdDev_ms,Kruskal_P90_ms,Kruskal_P99_ms,Kruskal_StdDev_ms,"
+                + "Boruvka_P90_ms,Boruvka_P99_ms,Boruvka_StdDev_ms,Cached\n");
 
         for (PerformanceRecord record : records) {
-            double timeRatio = record.kruskalTime > 0 ? (double) record.primTime / record.kruskalTime : 0;
+            double timeRatio = record.kruskalTime() > 0 ? (double) record.primTime() / record.kruskalTime() : 0;
             double opsRatio = record.kruskalOperations > 0 ? (double) record.primOperations / record.kruskalOperations : 0;
 
-            writer.write(String.format("%s,%d,%d,%d,%.1f,%d,%d,%.3f,%.3f,%d,%d,%.3f,%.3f\n",
+            writer.write(String.format("%s,%d,%d,%d,%.1f,%d,%d,%.3f,%.3f,%d,%d,%.3f,%.3f,%d,%.3f,%d,%s,%.3f,%.3f,%.3f,%.3f,%.3f,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%s\n",
                     record.dataset, record.graphId, record.vertices, record.edges, record.density,
-                    record.primCost, record.kruskalCost, record.primTime / 1000.0, record.kruskalTime / 1000.0,
-                    record.primOperations, record.kruskalOperations, timeRatio, opsRatio));
+                    record.primCost, record.kruskalCost, record.primTime() / 1e6, record.kruskalTime() / 1e6,
+                    record.primOperations, record.kruskalOperations, timeRatio, opsRatio,
+                    record.boruvkaCost, record.boruvkaTime() / 1e6, record.boruvkaOperations, record.selectedAlgorithm,
+                    record.loadNanos / 1e6, record.adjacencyBuildNanos / 1e6, record.kruskalSortNanos / 1e6,
+                    record.kruskalMainLoopNanos / 1e6, record.primMainLoopNanos / 1e6,
+                    record.primTiming.getSampleCount(),
+                    record.primTiming.getP90Nanos() / 1e6, record.primTiming.getP99Nanos() / 1e6,
+                    record.primTiming.getStdDevNanos() / 1e6,
+                    record.kruskalTiming.getP90Nanos() / 1e6, record.kruskalTiming.getP99Nanos() / 1e6,
+                    record.kruskalTiming.getStdDevNanos() / 1e6,
+                    record.boruvkaTiming.getP90Nanos() / 1e6, record.boruvkaTiming.getP99Nanos() / 1e6,
+                    record.boruvkaTiming.getStdDevNanos() / 1e6,
+                    record.cached));
         }
 
         writer.close();
@@ -151,6 +618,13 @@ public class Main {
 
         // Print summary statistics by dataset and size ranges
         printDetailedSummaryStatistics(records);
+
+        if (cache != null) {
+            System.out.printf("MST result cache:     hits = %d (%d from disk), misses = %d, evictions = %d, "
+                            + "held = %d results / %d edges of %d, failed writes = %d%n",
+                    cache.getHits(), cache.getDiskHits(), cache.getMisses(), cache.getEvictions(),
+                    cache.getEntryCount(), cache.getEdgeCount(), cache.getMaxEdges(), cache.getWriteFailures());
+        }
     }
 
     public static void printDetailedSummaryStatistics(List<PerformanceRecord> records) {
@@ -169,27 +643,37 @@ public class Main {
             List<PerformanceRecord> datasetRecords = entry.getValue();
 
             System.out.printf("%n%s (%d graphs):%n", dataset.toUpperCase(), datasetRecords.size());
-            System.out.println("GraphID | Vertices | Density% | Prim Time | Kruskal Time | Time Ratio | Prim Ops | Kruskal Ops");
-            System.out.println("--------|----------|----------|-----------|--------------|------------|----------|------------");
+            System.out.println("GraphID | Vertices | Density% | Prim Med | Prim p90 | Prim p99 |  Prim SD | Kruskal Med | Kruskal p90 | Kruskal p99 | Kruskal SD | Time Ratio | Prim Ops | Kruskal Ops");
+            System.out.println("--------|----------|----------|----------|----------|----------|----------|-------------|-------------|-------------|------------|------------|----------|------------");
 
             for (PerformanceRecord record : datasetRecords) {
-                double timeRatio = record.kruskalTime > 0 ? (double) record.primTime / record.kruskalTime : 0;
-                System.out.printf("%7d | %8d | %8.1f | %9.3f | %12.3f | %10.3f | %8d | %10d%n",
+                double timeRatio = record.kruskalTime() > 0 ? (double) record.primTime() / record.kruskalTime() : 0;
+                System.out.printf("%7d | %8d | %8.1f | %8.3f | %8.3f | %8.3f | %8.3f | %11.3f | %11.3f | %11.3f | %10.3f | %10.3f | %8d | %10d%n",
                         record.graphId, record.vertices, record.density,
-                        record.primTime / 1000.0, record.kruskalTime / 1000.0, timeRatio,
-                        record.primOperations, record.kruskalOperations);
+                        record.primTime() / 1e6, record.primTiming.getP90Nanos() / 1e6,
+                        record.primTiming.getP99Nanos() / 1e6, record.primTiming.getStdDevNanos() / 1e6,
+                        record.kruskalTime() / 1e6, record.kruskalTiming.getP90Nanos() / 1e6,
+                        record.kruskalTiming.getP99Nanos() / 1e6, record.kruskalTiming.getStdDevNanos() / 1e6,
+                        timeRatio, record.primOperations, record.kruskalOperations);
             }
 
-            // Averages for the dataset
-            double avgPrimTime = datasetRecords.stream().mapToLong(r -> r.primTime).average().orElse(0) / 1000.0;
-            double avgKruskalTime = datasetRecords.stream().mapToLong(r -> r.kruskalTime).average().orElse(0) / 1000.0;
+            // Averages of the per-graph figures for the dataset
+            double avgPrimTime = datasetRecords.stream().mapToLong(r -> r.primTime()).average().orElse(0) / 1e6;
+            double avgKruskalTime = datasetRecords.stream().mapToLong(r -> r.kruskalTime()).average().orElse(0) / 1e6;
             double avgPrimOps = datasetRecords.stream().mapToLong(r -> r.primOperations).average().orElse(0);
             double avgKruskalOps = datasetRecords.stream().mapToLong(r -> r.kruskalOperations).average().orElse(0);
             double avgDensity = datasetRecords.stream().mapToDouble(r -> r.density).average().orElse(0);
 
-            System.out.printf("AVERAGE | %8.0f | %8.1f | %9.3f | %12.3f | %10.3f | %8.0f | %10.0f%n",
+            System.out.printf("AVERAGE | %8.0f | %8.1f | %8.3f | %8.3f | %8.3f | %8.3f | %11.3f | %11.3f | %11.3f | %10.3f | %10.3f | %8.0f | %10.0f%n",
                     datasetRecords.stream().mapToInt(r -> r.vertices).average().orElse(0),
-                    avgDensity, avgPrimTime, avgKruskalTime,
+                    avgDensity, avgPrimTime,
+                    datasetRecords.stream().mapToLong(r -> r.primTiming.getP90Nanos()).average().orElse(0) / 1e6,
+                    datasetRecords.stream().mapToLong(r -> r.primTiming.getP99Nanos()).average().orElse(0) / 1e6,
+                    datasetRecords.stream().mapToDouble(r -> r.primTiming.getStdDevNanos()).average().orElse(0) / 1e6,
+                    avgKruskalTime,
+                    datasetRecords.stream().mapToLong(r -> r.kruskalTiming.getP90Nanos()).average().orElse(0) / 1e6,
+                    datasetRecords.stream().mapToLong(r -> r.kruskalTiming.getP99Nanos()).average().orElse(0) / 1e6,
+                    datasetRecords.stream().mapToDouble(r -> r.kruskalTiming.getStdDevNanos()).average().orElse(0) / 1e6,
                     avgKruskalTime > 0 ? avgPrimTime / avgKruskalTime : 0,
                     avgPrimOps, avgKruskalOps);
         }
@@ -199,20 +683,46 @@ public class Main {
         System.out.println("OVERALL ALGORITHM COMPARISON");
         System.out.println("=".repeat(100));
 
-        double overallPrimTime = records.stream().mapToLong(r -> r.primTime).average().orElse(0) / 1000.0;
-        double overallKruskalTime = records.stream().mapToLong(r -> r.kruskalTime).average().orElse(0) / 1000.0;
+        double overallPrimTime = records.stream().mapToLong(r -> r.primTime()).average().orElse(0) / 1e6;
+        double overallKruskalTime = records.stream().mapToLong(r -> r.kruskalTime()).average().orElse(0) / 1e6;
         double overallPrimOps = records.stream().mapToLong(r -> r.primOperations).average().orElse(0);
         double overallKruskalOps = records.stream().mapToLong(r -> r.kruskalOperations).average().orElse(0);
 
-        System.out.printf("Prim's Algorithm:     Avg Time = %.3f ms, Avg Operations = %.0f%n",
+        System.out.printf("Prim's Algorithm:     Avg Median Time = %.3f ms, Avg Operations = %.0f%n",
                 overallPrimTime, overallPrimOps);
-        System.out.printf("Kruskal's Algorithm:  Avg Time = %.3f ms, Avg Operations = %.0f%n",
+        System.out.printf("Kruskal's Algorithm:  Avg Median Time = %.3f ms, Avg Operations = %.0f%n",
                 overallKruskalTime, overallKruskalOps);
         System.out.printf("Performance Ratio:    Time = %.3f (Prim/Kruskal), Operations = %.3f (Prim/Kruskal)%n",
                 overallPrimTime / overallKruskalTime,
                 overallPrimOps / overallKruskalOps);
     }
 
+    // The result one engine kept from measure, with the timings of its solves
+    private static class Measurement {
+        final MSTResult result;
+        final TimingStats timing;
+
+        Measurement(MSTResult result, TimingStats timing) {
+            this.result = result;
+            this.timing = timing;
+        }
+    }
+
+    // Everything produced for one graph, handed back to the writer thread in input order
+    static class GraphOutcome {
+        final String log;
+        final String errors;
+        final GraphResult result;
+        final PerformanceRecord record;
+
+        GraphOutcome(String log, String errors, GraphResult result, PerformanceRecord record) {
+            this.log = log;
+            this.errors = errors;
+            this.result = result;
+            this.record = record;
+        }
+    }
+
     static class PerformanceRecord {
         String dataset;
         int graphId;
@@ -221,14 +731,27 @@ public class Main {
         double density;
         int primCost;
         int kruskalCost;
-        long primTime;
-        long kruskalTime;
+        TimingStats primTiming;
+        TimingStats kruskalTiming;
         int primOperations;
         int kruskalOperations;
+        int boruvkaCost;
+        TimingStats boruvkaTiming;
+        int boruvkaOperations;
+        String selectedAlgorithm;
+        // Phase timings in nanoseconds; engine phases are 0 when metrics are off
+        long loadNanos;
+        long adjacencyBuildNanos;
+        long kruskalSortNanos;
+        long kruskalMainLoopNanos;
+        long primMainLoopNanos;
+        // True when at least one engine's result came from the result cache
+        boolean cached;
 
         public PerformanceRecord(String dataset, int graphId, int vertices, int edges, double density,
-                                 int primCost, int kruskalCost, long primTime, long kruskalTime,
-                                 int primOperations, int kruskalOperations) {
+                                 int primCost, int kruskalCost, TimingStats primTiming, TimingStats kruskalTiming,
+                                 int primOperations, int kruskalOperations,
+                                 int boruvkaCost, TimingStats boruvkaTiming, int boruvkaOperations, String selectedAlgorithm) {
             this.dataset = dataset;
             this.graphId = graphId;
             this.vertices = vertices;
@@ -236,10 +759,28 @@ public class Main {
             this.density = density;
             this.primCost = primCost;
             this.kruskalCost = kruskalCost;
-            this.primTime = primTime;
-            this.kruskalTime = kruskalTime;
+            this.primTiming = primTiming;
+            this.kruskalTiming = kruskalTiming;
             this.primOperations = primOperations;
             this.kruskalOperations = kruskalOperations;
+            this.boruvkaCost = boruvkaCost;
+            this.boruvkaTiming = boruvkaTiming;
+            this.boruvkaOperations = boruvkaOperations;
+            this.selectedAlgorithm = selectedAlgorithm;
+        }
+
+        // Median solve times in nanoseconds
+        long primTime() { return primTiming.getMedianNanos(); }
+        long kruskalTime() { return kruskalTiming.getMedianNanos(); }
+        long boruvkaTime() { return boruvkaTiming.getMedianNanos(); }
+
+        void setPhases(long loadNanos, long adjacencyBuildNanos, long kruskalSortNanos,
+                       long kruskalMainLoopNanos, long primMainLoopNanos) {
+            this.loadNanos = loadNanos;
+            this.adjacencyBuildNanos = adjacencyBuildNanos;
+            this.kruskalSortNanos = kruskalSortNanos;
+            this.kruskalMainLoopNanos = kruskalMainLoopNanos;
+            this.primMainLoopNanos = primMainLoopNanos;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,252 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Edge list, and on demand a CSR adjacency, kept outside the Java heap so a graph can exceed both
+// Java's array size limit and -Xmx. Ints live in fixed-size segments (each well under the 2 GB
+// buffer limit) of either direct buffers or a memory-mapped temporary file. Only O(V) state,
+// the vertex names and adjacency offsets, is on the heap.
+// close() drops the buffers and the garbage collector frees them; they are never unmapped by force,
+// so a read racing with close() fails with an exception instead of touching freed memory. Every
+// accessor fails with IllegalStateException once the store is closed. Appending and building the
+// adjacency are single-threaded; reads may be shared, and the single owner closes the store after
+// every reader is done.
+public class OffHeapEdgeStore implements EdgeStream, Closeable {
+    public enum Backing { DIRECT, MAPPED }
+
+    // Ints per segment, 2^27 = 512 MB
+    public static final int DEFAULT_SEGMENT_SHIFT = 27;
+
+    // A stored edge is int from, int to, int weight
+    private static final int EDGE_INTS = 3;
+
+    private final int id;
+    private final String[] names;
+    private final long edgeCapacity;
+    private final Backing backing;
+    private final int segmentShift;
+    // Backing file of a MAPPED store, with the next unmapped offset
+    private final File file;
+    private final FileChannel channel;
+    private long mappedBytes;
+
+    private final IntSegments edges;
+    private long edgeCount;
+    // Adjacency of vertex v is the slot range [adjacencyOffsets[v], adjacencyOffsets[v + 1])
+    private long[] adjacencyOffsets;
+    private IntSegments adjacentVertices;
+    private IntSegments adjacentWeights;
+    // Volatile so readers on other threads see a close
+    private volatile boolean closed;
+
+    public OffHeapEdgeStore(int id, String[] names, long edgeCapacity, Backing backing, File directory)
+            throws IOException {
+        this(id, names, edgeCapacity, backing, directory, DEFAULT_SEGMENT_SHIFT);
+    }
+
+    // Smaller segments are only useful to exercise segment boundaries
+    OffHeapEdgeStore(int id, String[] names, long edgeCapacity, Backing backing, File directory, int segmentShift)
+            throws IOException {
+        if (edgeCapacity < 0) {
+            throw new IllegalArgumentException("Edge capacity must not be negative, got " + edgeCapacity);
+        }
+        if (segmentShift < 1 || segmentShift > 28) {
+            throw new IllegalArgumentException("Segment shift must be between 1 and 28, got " + segmentShift);
+        }
+        this.id = id;
+        this.names = names;
+        this.edgeCapacity = edgeCapacity;
+        this.backing = backing;
+        this.segmentShift = segmentShift;
+        // The file is deleted by close(), or here if construction fails; deleteOnExit would keep a
+        // path per store for the life of the JVM
+        if (backing == Backing.MAPPED) {
+            file = File.createTempFile("mst-edges-", ".bin", directory);
+            try {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file.toPath());
+                throw e;
+            }
+        } else {
+            file = null;
+            channel = null;
+        }
+        try {
+            edges = new IntSegments(EDGE_INTS * edgeCapacity);
+        } catch (IOException | RuntimeException | OutOfMemoryError e) {
+            close();
+            throw e;
+        }
+    }
+
+    // Copies a streamed graph off-heap, e.g. a block of a binary graph file
+    public static OffHeapEdgeStore copyOf(EdgeStream source, Backing backing, File directory) throws IOException {
+        String[] names = new String[source.getVertexCount()];
+        for (int v = 0; v < names.length; v++) {
+            names[v] = source.getVertexName(v);
+        }
+        OffHeapEdgeStore store = new OffHeapEdgeStore(source.getId(), names, source.getEdgeCount(), backing, directory);
+        try {
+            source.forEachEdge(store::append);
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    public void append(int from, int to, int weight) {
+        checkOpen();
+        if (edgeCount == edgeCapacity) {
+            throw new IllegalStateException("Edge store is full at " + edgeCapacity + " edges");
+        }
+        if (from < 0 || from >= names.length || to < 0 || to >= names.length) {
+            throw new IllegalArgumentException("Edge " + from + "-" + to + " has an endpoint outside 0.." + (names.length - 1));
+        }
+        long base = EDGE_INTS * edgeCount;
+        edges.set(base, from);
+        edges.set(base + 1, to);
+        edges.set(base + 2, weight);
+        edgeCount++;
+        // Any adjacency built so far no longer covers every edge
+        adjacencyOffsets = null;
+    }
+
+    @Override
+    public int getId() { return id; }
+    @Override
+    public int getVertexCount() { return names.length; }
+    @Override
+    public long getEdgeCount() { return edgeCount; }
+    @Override
+    public String getVertexName(int vertex) { return names[vertex]; }
+    public Backing getBacking() { return backing; }
+
+    public int getEdgeFrom(long edge) { checkOpen(); return edges.get(EDGE_INTS * edge); }
+    public int getEdgeTo(long edge) { checkOpen(); return edges.get(EDGE_INTS * edge + 1); }
+    public int getEdgeWeight(long edge) { checkOpen(); return edges.get(EDGE_INTS * edge + 2); }
+
+    @Override
+    public void forEachEdge(EdgeVisitor visitor) throws IOException {
+        checkOpen();
+        for (long e = 0; e < edgeCount; e++) {
+            long base = EDGE_INTS * e;
+            visitor.accept(edges.get(base), edges.get(base + 1), edges.get(base + 2));
+        }
+    }
+
+    // Builds the off-heap adjacency once; appending another edge discards it
+    public void buildAdjacency() throws IOException {
+        checkOpen();
+        if (adjacencyOffsets != null) return;
+        int vertexCount = names.length;
+
+        // Count degrees, then prefix-sum into offsets
+        long[] offsets = new long[vertexCount + 1];
+        for (long e = 0; e < edgeCount; e++) {
+            offsets[getEdgeFrom(e) + 1]++;
+            offsets[getEdgeTo(e) + 1]++;
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+
+        // Sized for the full edge capacity, so a rebuild after more appends reuses the segments
+        if (adjacentVertices == null) {
+            adjacentVertices = new IntSegments(2 * edgeCapacity);
+            adjacentWeights = new IntSegments(2 * edgeCapacity);
+        }
+        long[] next = Arrays.copyOf(offsets, vertexCount);
+        for (long e = 0; e < edgeCount; e++) {
+            int u = getEdgeFrom(e);
+            int v = getEdgeTo(e);
+            int w = getEdgeWeight(e);
+            long slot = next[u]++;
+            adjacentVertices.set(slot, v);
+            adjacentWeights.set(slot, w);
+            slot = next[v]++;
+            adjacentVertices.set(slot, u);
+            adjacentWeights.set(slot, w);
+        }
+        adjacencyOffsets = offsets;
+    }
+
+    // Adjacency accessors, valid after buildAdjacency; callers must not modify the offsets
+    public long[] getAdjacencyOffsets() { checkOpen(); return adjacencyOffsets; }
+    public int getAdjacentVertex(long slot) { checkOpen(); return adjacentVertices.get(slot); }
+    public int getAdjacentWeight(long slot) { checkOpen(); return adjacentWeights.get(slot); }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        adjacencyOffsets = null;
+        release(edges);
+        release(adjacentVertices);
+        release(adjacentWeights);
+        if (channel != null) {
+            channel.close();
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Edge store " + id + " is closed");
+        }
+    }
+
+    private ByteBuffer allocate(int bytes) throws IOException {
+        ByteBuffer buffer;
+        if (backing == Backing.MAPPED) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, mappedBytes, bytes);
+            mappedBytes += bytes;
+        } else {
+            buffer = ByteBuffer.allocateDirect(bytes);
+        }
+        return buffer.order(ByteOrder.nativeOrder());
+    }
+
+    // A long-indexed int array split into segments; only the last segment is shorter than the rest
+    private final class IntSegments {
+        private final int mask = (1 << segmentShift) - 1;
+        private ByteBuffer[] segments;
+
+        IntSegments(long capacity) throws IOException {
+            int count = (int) ((capacity + mask) >>> segmentShift);
+            segments = new ByteBuffer[count];
+            try {
+                for (int s = 0; s < count; s++) {
+                    long ints = Math.min(1L << segmentShift, capacity - ((long) s << segmentShift));
+                    segments[s] = allocate((int) (4 * ints));
+                }
+            } catch (IOException | RuntimeException | OutOfMemoryError e) {
+                release(this);
+                throw e;
+            }
+        }
+
+        int get(long index) {
+            return segments[(int) (index >>> segmentShift)].getInt(((int) index & mask) << 2);
+        }
+
+        void set(long index, int value) {
+            segments[(int) (index >>> segmentShift)].putInt(((int) index & mask) << 2, value);
+        }
+    }
+
+    // Drops the segments for the garbage collector. Direct buffers count against
+    // -XX:MaxDirectMemorySize, and allocating past it collects unreachable ones first.
+    private static void release(IntSegments ints) {
+        if (ints != null) {
+            ints.segments = null;
+        }
+    }
+}
@@ -1,62 +1,153 @@
+import java.io.IOException;
 import java.util.*;
 
-public class PrimMST {
-    private int operationsCount;
+// Eager Prim: the heap holds each fringe vertex once, keyed by its cheapest known connecting edge
+public class PrimMST implements MSTAlgorithm {
+    public static final int DEFAULT_HEAP_ARITY = 4;
 
-    public MSTResult findMST(Graph graph) {
-        operationsCount = 0;
+    private final int heapArity;
+
+    public PrimMST() {
+        this(DEFAULT_HEAP_ARITY);
+    }
+
+    public PrimMST(int heapArity) {
+        if (heapArity < 2) {
+            throw new IllegalArgumentException("Heap arity must be at least 2, got " + heapArity);
+        }
+        this.heapArity = heapArity;
+    }
+
+    public int getHeapArity() { return heapArity; }
+
+    @Override
+    public String getName() { return "Prim"; }
+
+    @Override
+    public String getCacheKey() { return "Prim_d" + heapArity; }
+
+    @Override
+    public MSTResult findMST(CompactGraph graph, MSTScratch scratch) {
         long startTime = System.nanoTime();
+        MSTMetrics metrics = new MSTMetrics();
 
         List<Edge> mstEdges = new ArrayList<>();
         int totalCost = 0;
+        int vertexCount = graph.getVertexCount();
 
-        if (graph.getVertices().isEmpty()) {
-            long executionTime = (System.nanoTime() - startTime) / 1_000_000;
-            return new MSTResult(mstEdges, totalCost, operationsCount, executionTime);
+        if (vertexCount == 0) {
+            long executionTimeNanos = System.nanoTime() - startTime;
+            return new MSTResult(mstEdges, totalCost, 0, executionTimeNanos);
         }
 
-        Set<String> visited = new HashSet<>();
-        PriorityQueue<Edge> pq = new PriorityQueue<>();
-        Map<String, List<Edge>> adjList = graph.getAdjacencyList();
+        int[] offsets = graph.getOffsets();
+        int[] targets = graph.getTargets();
+        int[] weights = graph.getWeights();
+        int[] edgeIds = graph.getEdgeIds();
+
+        boolean[] visited = scratch.flags(0, vertexCount);
+        int[] bestEdge = scratch.ints(0, vertexCount);
+        IndexedMinHeap heap = scratch.heap(vertexCount, heapArity);
+        long comparisons = 0;
+        long loopStart = MSTMetrics.now();
 
         // Start with first vertex
-        String startVertex = graph.getVertices().get(0);
-        visited.add(startVertex);
-        operationsCount++;
-
-        // Add all edges from start vertex to priority queue
-        pq.addAll(adjList.get(startVertex));
-        operationsCount += adjList.get(startVertex).size();
-
-        while (!pq.isEmpty() && visited.size() < graph.getVertexCount()) {
-            Edge edge = pq.poll();
-            operationsCount++;
-
-            String nextVertex = null;
-            if (visited.contains(edge.getFrom()) && !visited.contains(edge.getTo())) {
-                nextVertex = edge.getTo();
-            } else if (visited.contains(edge.getTo()) && !visited.contains(edge.getFrom())) {
-                nextVertex = edge.getFrom();
-            }
+        int vertex = 0;
+        while (true) {
+            visited[vertex] = true;
 
-            if (nextVertex != null) {
-                visited.add(nextVertex);
-                mstEdges.add(edge);
-                totalCost += edge.getWeight();
-                operationsCount += 3;
-
-                // Add edges from the new vertex
-                for (Edge e : adjList.get(nextVertex)) {
-                    operationsCount++;
-                    if (!visited.contains(e.getTo())) {
-                        pq.add(e);
-                        operationsCount++;
+            // Relax edges from the new tree vertex
+            for (int slot = offsets[vertex]; slot < offsets[vertex + 1]; slot++) {
+                int target = targets[slot];
+                if (visited[target]) continue;
+
+                if (!heap.contains(target)) {
+                    heap.insert(target, weights[slot]);
+                    bestEdge[target] = edgeIds[slot];
+                } else {
+                    if (MSTMetrics.ENABLED) comparisons++;
+                    if (weights[slot] < heap.keyOf(target)) {
+                        heap.decreaseKey(target, weights[slot]);
+                        bestEdge[target] = edgeIds[slot];
                     }
                 }
             }
+
+            if (heap.isEmpty()) break;
+
+            vertex = heap.poll();
+            int edge = bestEdge[vertex];
+            int treeVertex = graph.getEdgeFrom(edge) == vertex ? graph.getEdgeTo(edge) : graph.getEdgeFrom(edge);
+            mstEdges.add(new Edge(graph.getVertexName(treeVertex), graph.getVertexName(vertex), graph.getEdgeWeight(edge)));
+            totalCost += graph.getEdgeWeight(edge);
+        }
+
+        metrics.addMainLoopNanos(MSTMetrics.now() - loopStart);
+        metrics.addComparisons(comparisons);
+        metrics.add(heap);
+        Map<String, Long> stats = metrics.addTo(new LinkedHashMap<>());
+        long executionTimeNanos = System.nanoTime() - startTime;
+        return new MSTResult(mstEdges, totalCost, metrics.operations(), executionTimeNanos, stats);
+    }
+
+    // Same algorithm over an off-heap graph; only the O(V) heap, marks and tree edges are on the Java heap
+    public MSTResult findMST(OffHeapEdgeStore graph) throws IOException {
+        long startTime = System.nanoTime();
+        MSTMetrics metrics = new MSTMetrics();
+        MSTScratch scratch = MSTScratch.forCurrentThread();
+
+        List<Edge> mstEdges = new ArrayList<>();
+        int totalCost = 0;
+        int vertexCount = graph.getVertexCount();
+
+        if (vertexCount == 0) {
+            long executionTimeNanos = System.nanoTime() - startTime;
+            return new MSTResult(mstEdges, totalCost, 0, executionTimeNanos);
+        }
+
+        graph.buildAdjacency();
+        long[] offsets = graph.getAdjacencyOffsets();
+
+        boolean[] visited = scratch.flags(0, vertexCount);
+        // Tree endpoint of each fringe vertex's cheapest known edge; the heap holds its weight
+        int[] bestFrom = scratch.ints(0, vertexCount);
+        int[] bestWeight = scratch.ints(1, vertexCount);
+        IndexedMinHeap heap = scratch.heap(vertexCount, heapArity);
+        long comparisons = 0;
+        long loopStart = MSTMetrics.now();
+
+        int vertex = 0;
+        while (true) {
+            visited[vertex] = true;
+
+            for (long slot = offsets[vertex]; slot < offsets[vertex + 1]; slot++) {
+                int target = graph.getAdjacentVertex(slot);
+                if (visited[target]) continue;
+                int weight = graph.getAdjacentWeight(slot);
+
+                if (!heap.contains(target)) {
+                    heap.insert(target, weight);
+                } else {
+                    if (MSTMetrics.ENABLED) comparisons++;
+                    if (weight >= heap.keyOf(target)) continue;
+                    heap.decreaseKey(target, weight);
+                }
+                bestFrom[target] = vertex;
+                bestWeight[target] = weight;
+            }
+
+            if (heap.isEmpty()) break;
+
+            vertex = heap.poll();
+            mstEdges.add(new Edge(graph.getVertexName(bestFrom[vertex]), graph.getVertexName(vertex), bestWeight[vertex]));
+            totalCost += bestWeight[vertex];
         }
 
-        long executionTime = (System.nanoTime() - startTime) / 1_000_000;
-        return new MSTResult(mstEdges, totalCost, operationsCount, executionTime);
+        metrics.addMainLoopNanos(MSTMetrics.now() - loopStart);
+        metrics.addComparisons(comparisons);
+        metrics.add(heap);
+        Map<String, Long> stats = metrics.addTo(new LinkedHashMap<>());
+        long executionTimeNanos = System.nanoTime() - startTime;
+        return new MSTResult(mstEdges, totalCost, metrics.operations(), executionTimeNanos, stats);
     }
-}
\ No newline at end of file
+}
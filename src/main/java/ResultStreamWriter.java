@@ -0,0 +1,40 @@
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+// Writes the OutputData JSON shape incrementally: each GraphResult is serialized and flushed
+// as soon as it is written, so nothing accumulates in memory and early results reach disk first.
+public class ResultStreamWriter implements Closeable {
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final JsonGenerator generator;
+    private int count;
+
+    public ResultStreamWriter(File file, boolean prettyPrint) throws IOException {
+        generator = objectMapper.getFactory().createGenerator(file, JsonEncoding.UTF8);
+        if (prettyPrint) {
+            generator.useDefaultPrettyPrinter();
+        }
+        generator.writeStartObject();
+        generator.writeFieldName("results");
+        generator.writeStartArray();
+    }
+
+    public void write(GraphResult result) throws IOException {
+        objectMapper.writeValue(generator, result);
+        generator.flush();
+        count++;
+    }
+
+    public int getCount() { return count; }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+}
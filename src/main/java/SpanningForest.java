@@ -0,0 +1,194 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Minimum spanning forest for graphs that may be disconnected. Components are found with a
+// union-find pass over the edges, each one is extracted as its own CompactGraph and solved with
+// the engine the selector picks for it, and the per-component trees are reported separately.
+// With several non-trivial components and enough edges, components are solved in parallel.
+public class SpanningForest implements MSTAlgorithm {
+    public static final String STAT_COMPONENTS = "components";
+    // Below this many edges the components are solved on the calling thread
+    private static final int PARALLEL_MIN_EDGES = 4096;
+
+    private final MSTSelector selector;
+    // When set, every component is solved with this engine instead of the selector's pick
+    private final MSTAlgorithm engine;
+    private final ForkJoinPool pool;
+
+    public SpanningForest(MSTSelector selector) {
+        this(selector, ForkJoinPool.commonPool());
+    }
+
+    public SpanningForest(MSTSelector selector, ForkJoinPool pool) {
+        this(selector, null, pool);
+    }
+
+    // Runs one engine on every component, e.g. Prim, which on its own only spans vertex 0's component
+    public SpanningForest(MSTAlgorithm engine) {
+        this(null, engine, ForkJoinPool.commonPool());
+    }
+
+    private SpanningForest(MSTSelector selector, MSTAlgorithm engine, ForkJoinPool pool) {
+        this.selector = selector;
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    public MSTAlgorithm getEngine() { return engine; }
+
+    @Override
+    public String getName() { return engine != null ? engine.getName() + "Forest" : "Forest"; }
+
+    // Components are solved by the fixed engine, or by whatever the selector's thresholds pick
+    @Override
+    public String getCacheKey() {
+        if (engine != null) return engine.getCacheKey() + "_Forest";
+        return "Forest_" + selector.getDenseThreshold() + "_" + selector.getSparseAverageDegree()
+                + "_" + selector.getSmallGraphVertices();
+    }
+
+    @Override
+    public MSTResult findMST(CompactGraph graph, MSTScratch scratch) {
+        long startTime = System.nanoTime();
+        int vertexCount = graph.getVertexCount();
+        int edgeCount = graph.getEdgeCount();
+
+        // Label components densely in order of their first vertex
+        DisjointSet uf = new DisjointSet(vertexCount);
+        for (int e = 0; e < edgeCount; e++) {
+            uf.union(graph.getEdgeFrom(e), graph.getEdgeTo(e));
+        }
+        MSTMetrics labelling = new MSTMetrics();
+        int[] componentOf = new int[vertexCount];
+        int[] labelOfRoot = new int[vertexCount];
+        Arrays.fill(labelOfRoot, -1);
+        int componentCount = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            int root = uf.find(v);
+            if (labelOfRoot[root] < 0) {
+                labelOfRoot[root] = componentCount++;
+            }
+            componentOf[v] = labelOfRoot[root];
+        }
+        labelling.add(uf);
+        long operationsCount = labelling.operations();
+        // Component counters are summed; the labelling pass only adds its finds and unions
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put(STAT_COMPONENTS, 0L);
+
+        List<MSTComponent> components = new ArrayList<>(componentCount);
+        List<Edge> mstEdges = new ArrayList<>();
+        int totalCost = 0;
+
+        if (componentCount == 1) {
+            MSTAlgorithm chosen = select(graph);
+            MSTResult result = chosen.findMST(graph, scratch);
+            components.add(new MSTComponent(0, vertexCount, chosen.getName(), result.getMstEdges(), result.getTotalCost()));
+            mstEdges.addAll(result.getMstEdges());
+            totalCost = result.getTotalCost();
+            operationsCount += result.getOperationsCount();
+            stats.putAll(result.getStats());
+        } else if (componentCount > 1) {
+            CompactGraph[] subgraphs = split(graph, componentOf, componentCount);
+            MSTAlgorithm[] engines = new MSTAlgorithm[componentCount];
+            MSTResult[] results = new MSTResult[componentCount];
+            int nonTrivial = 0;
+            for (int c = 0; c < componentCount; c++) {
+                engines[c] = select(subgraphs[c]);
+                if (subgraphs[c].getVertexCount() > 1) nonTrivial++;
+            }
+
+            if (nonTrivial > 1 && edgeCount >= PARALLEL_MIN_EDGES) {
+                List<ForkJoinTask<MSTResult>> tasks = new ArrayList<>(componentCount);
+                for (int c = 0; c < componentCount; c++) {
+                    CompactGraph subgraph = subgraphs[c];
+                    MSTAlgorithm componentEngine = engines[c];
+                    tasks.add(subgraph.getVertexCount() > 1
+                            ? pool.submit(() -> componentEngine.findMST(subgraph))
+                            : null);
+                }
+                for (int c = 0; c < componentCount; c++) {
+                    if (tasks.get(c) != null) results[c] = tasks.get(c).join();
+                }
+            } else {
+                for (int c = 0; c < componentCount; c++) {
+                    if (subgraphs[c].getVertexCount() > 1) results[c] = engines[c].findMST(subgraphs[c], scratch);
+                }
+            }
+
+            for (int c = 0; c < componentCount; c++) {
+                MSTResult result = results[c];
+                // Isolated vertices are trivially their own tree
+                List<Edge> edges = result != null ? result.getMstEdges() : new ArrayList<>();
+                int cost = result != null ? result.getTotalCost() : 0;
+                components.add(new MSTComponent(c, subgraphs[c].getVertexCount(), engines[c].getName(), edges, cost));
+                mstEdges.addAll(edges);
+                totalCost += cost;
+                if (result != null) {
+                    operationsCount += result.getOperationsCount();
+                    result.getStats().forEach((key, value) -> stats.merge(key, value, Long::sum));
+                }
+            }
+        }
+
+        stats.put(STAT_COMPONENTS, (long) componentCount);
+        if (MSTMetrics.ENABLED) {
+            stats.merge(MSTMetrics.FINDS, uf.getFindCount(), Long::sum);
+            stats.merge(MSTMetrics.UNIONS, uf.getUnionCount(), Long::sum);
+            stats.merge(MSTMetrics.PATH_COMPRESSION_STEPS, uf.getPathCompressionSteps(), Long::sum);
+        }
+        long executionTimeNanos = System.nanoTime() - startTime;
+        int operations = (int) Math.min(operationsCount, Integer.MAX_VALUE);
+        return new MSTResult(mstEdges, totalCost, operations, executionTimeNanos, stats, components);
+    }
+
+    private MSTAlgorithm select(CompactGraph component) {
+        return engine != null ? engine : selector.select(component);
+    }
+
+    // One CompactGraph per component, keeping vertex and edge order within each
+    private static CompactGraph[] split(CompactGraph graph, int[] componentOf, int componentCount) {
+        int vertexCount = graph.getVertexCount();
+        int edgeCount = graph.getEdgeCount();
+
+        int[] vertexTotals = new int[componentCount];
+        int[] localId = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            localId[v] = vertexTotals[componentOf[v]]++;
+        }
+        int[] edgeTotals = new int[componentCount];
+        for (int e = 0; e < edgeCount; e++) {
+            edgeTotals[componentOf[graph.getEdgeFrom(e)]]++;
+        }
+
+        String[][] names = new String[componentCount][];
+        int[][] from = new int[componentCount][];
+        int[][] to = new int[componentCount][];
+        int[][] weight = new int[componentCount][];
+        for (int c = 0; c < componentCount; c++) {
+            names[c] = new String[vertexTotals[c]];
+            from[c] = new int[edgeTotals[c]];
+            to[c] = new int[edgeTotals[c]];
+            weight[c] = new int[edgeTotals[c]];
+        }
+        for (int v = 0; v < vertexCount; v++) {
+            names[componentOf[v]][localId[v]] = graph.getVertexName(v);
+        }
+        int[] filled = new int[componentCount];
+        for (int e = 0; e < edgeCount; e++) {
+            int u = graph.getEdgeFrom(e);
+            int c = componentOf[u];
+            int slot = filled[c]++;
+            from[c][slot] = localId[u];
+            to[c][slot] = localId[graph.getEdgeTo(e)];
+            weight[c][slot] = graph.getEdgeWeight(e);
+        }
+
+        CompactGraph[] subgraphs = new CompactGraph[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            subgraphs[c] = new CompactGraph(graph.getId(), names[c], from[c], to[c], weight[c]);
+        }
+        return subgraphs;
+    }
+}
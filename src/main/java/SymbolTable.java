@@ -0,0 +1,116 @@
+import java.util.Arrays;
+
+// Interns vertex names to dense int ids in first-seen order, so a name mentioned by many edges and
+// graphs is held as one String. Names can be looked up straight from a parser's character buffer,
+// so only the first occurrence of a name allocates. Open addressing with linear probing; grows
+// when half full. Not thread-safe: share a table across the graphs of one load, not across threads.
+public class SymbolTable {
+    private static final int EMPTY = -1;
+
+    // Indexed by id
+    private String[] names;
+    private int[] hashes;
+    // Hash slots holding ids
+    private int[] slots;
+    private int size;
+
+    public SymbolTable() {
+        this(16);
+    }
+
+    public SymbolTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        names = new String[Math.max(expectedSize, 4)];
+        hashes = new int[names.length];
+        slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+    }
+
+    public int intern(String name) {
+        int hash = name.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id == EMPTY) {
+                return add(slot, hash, name);
+            }
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+        }
+    }
+
+    // Same as intern(new String(chars, offset, length)), without the String unless the name is new
+    public int intern(char[] chars, int offset, int length) {
+        // String.hashCode over the same chars, so both lookups agree
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = slots.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id == EMPTY) {
+                return add(slot, hash, new String(chars, offset, length));
+            }
+            if (hashes[id] == hash && matches(names[id], chars, offset, length)) {
+                return id;
+            }
+        }
+    }
+
+    // The table's own instance of name
+    public String canonical(String name) {
+        return names[intern(name)];
+    }
+
+    public String getName(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Symbol " + id + " out of bounds for size " + size);
+        }
+        return names[id];
+    }
+
+    public int size() { return size; }
+
+    private int add(int slot, int hash, String name) {
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        int id = size++;
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id;
+        if (2 * size > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        Arrays.fill(slots, EMPTY);
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    private static boolean matches(String name, char[] chars, int offset, int length) {
+        if (name.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[offset + i]) return false;
+        }
+        return true;
+    }
+
+    // Folds the high bits into the low ones that the slot mask keeps
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.Arrays;
+
+// Summary of repeated nanosecond timings of one engine on one graph.
+// Percentiles use the nearest-rank method, so every reported value is an observed sample.
+public class TimingStats {
+    private final int sampleCount;
+    private final long medianNanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final double stdDevNanos;
+
+    private TimingStats(int sampleCount, long medianNanos, long p90Nanos, long p99Nanos, double stdDevNanos) {
+        this.sampleCount = sampleCount;
+        this.medianNanos = medianNanos;
+        this.p90Nanos = p90Nanos;
+        this.p99Nanos = p99Nanos;
+        this.stdDevNanos = stdDevNanos;
+    }
+
+    public static TimingStats of(long[] samples) {
+        if (samples.length == 0) {
+            throw new IllegalArgumentException("At least one timing sample is required");
+        }
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+
+        double mean = 0;
+        for (long sample : sorted) {
+            mean += sample;
+        }
+        mean /= sorted.length;
+        double squares = 0;
+        for (long sample : sorted) {
+            squares += (sample - mean) * (sample - mean);
+        }
+        // Sample standard deviation; a single sample has none
+        double stdDev = sorted.length > 1 ? Math.sqrt(squares / (sorted.length - 1)) : 0;
+
+        return new TimingStats(sorted.length, percentile(sorted, 50), percentile(sorted, 90),
+                percentile(sorted, 99), stdDev);
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    // Getters
+    public int getSampleCount() { return sampleCount; }
+    public long getMedianNanos() { return medianNanos; }
+    public long getP90Nanos() { return p90Nanos; }
+    public long getP99Nanos() { return p99Nanos; }
+    public double getStdDevNanos() { return stdDevNanos; }
+}
@@ -58,6 +58,15 @@ public class GraphTestUtils {
         return new Graph(1, vertices, edges);
     }
 
+    // Same graph with every weight multiplied by factor, e.g. to spread weights too far apart for counting sort
+    public static Graph withScaledWeights(Graph graph, int factor) {
+        List<Edge> edges = new ArrayList<>();
+        for (Edge edge : graph.getEdges()) {
+            edges.add(new Edge(edge.getFrom(), edge.getTo(), edge.getWeight() * factor));
+        }
+        return new Graph(graph.getId(), graph.getVertices(), edges);
+    }
+
     public static boolean isAcyclic(List<Edge> edges, int vertexCount) {
         // Use Union-Find to check for cycles
         UnionFind uf = new UnionFind(vertexCount);
@@ -87,7 +96,8 @@ public class GraphTestUtils {
         return connectedVertices.size() == vertices.size();
     }
 
-    // Simple Union-Find for cycle detection
+    // Simple Union-Find for cycle detection, kept apart from the production DisjointSet so the
+    // tests do not check that code with itself
     static class UnionFind {
         private int[] parent;
         private int[] rank;
@@ -108,20 +118,23 @@ public class GraphTestUtils {
             return parent[x];
         }
 
-        public void union(int x, int y) {
+        // Returns false if x and y were already in the same set
+        public boolean union(int x, int y) {
             int rootX = find(x);
             int rootY = find(y);
 
-            if (rootX != rootY) {
-                if (rank[rootX] < rank[rootY]) {
-                    parent[rootX] = rootY;
-                } else if (rank[rootX] > rank[rootY]) {
-                    parent[rootY] = rootX;
-                } else {
-                    parent[rootY] = rootX;
-                    rank[rootX]++;
-                }
+            if (rootX == rootY) {
+                return false;
+            }
+            if (rank[rootX] < rank[rootY]) {
+                parent[rootX] = rootY;
+            } else if (rank[rootX] > rank[rootY]) {
+                parent[rootY] = rootX;
+            } else {
+                parent[rootY] = rootX;
+                rank[rootX]++;
             }
+            return true;
         }
     }
-}
\ No newline at end of file
+}
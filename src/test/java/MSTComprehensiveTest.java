@@ -1,6 +1,16 @@
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class MSTComprehensiveTest {
 
@@ -109,6 +119,51 @@ public class MSTComprehensiveTest {
         assertTrue(kruskalResult.getTotalCost() >= 0, "MST cost should be non-negative");
     }
 
+    @Test
+    public void testMetricsCountRealEvents() {
+        Graph graph = GraphTestUtils.generateConnectedGraph(40, 0.3);
+        int vertexCount = graph.getVertices().size();
+
+        MSTResult primResult = new PrimMST().findMST(graph);
+        MSTResult kruskalResult = new KruskalMST().findMST(graph);
+        MSTResult boruvkaResult = new BoruvkaMST().findMST(graph);
+
+        // Every non-start vertex is pushed and popped exactly once by eager Prim
+        assertEquals(vertexCount - 1, primResult.getStat(MSTMetrics.HEAP_POPS));
+        assertEquals(vertexCount - 1, primResult.getStat(MSTMetrics.HEAP_PUSHES));
+        // Each accepted edge is one union; each scanned edge costs two finds
+        assertEquals(vertexCount - 1, kruskalResult.getStat(MSTMetrics.UNIONS));
+        assertTrue(kruskalResult.getStat(MSTMetrics.FINDS) >= 2L * (vertexCount - 1));
+        assertEquals(vertexCount - 1, boruvkaResult.getStat(MSTMetrics.UNIONS));
+
+        for (MSTResult result : List.of(primResult, kruskalResult, boruvkaResult)) {
+            assertTrue(result.getStat(MSTMetrics.COMPARISONS) > 0);
+            assertTrue(result.getStat(MSTMetrics.MAIN_LOOP_NANOS) > 0);
+            assertTrue(result.getOperationsCount() > 0);
+        }
+    }
+
+    @Test
+    public void testTimingStatsAndNanosecondTimes() {
+        long[] samples = new long[100];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (samples.length - i) * 1000L;
+        }
+        TimingStats timing = TimingStats.of(samples);
+        assertEquals(100, timing.getSampleCount());
+        assertEquals(50_000, timing.getMedianNanos());
+        assertEquals(90_000, timing.getP90Nanos());
+        assertEquals(99_000, timing.getP99Nanos());
+        assertEquals(29_011.5, timing.getStdDevNanos(), 0.1);
+        assertEquals(0, TimingStats.of(new long[]{7}).getStdDevNanos());
+        assertThrows(IllegalArgumentException.class, () -> TimingStats.of(new long[0]));
+
+        // Tiny graphs solve well under a millisecond but still get a measurable nanosecond time
+        MSTResult result = new PrimMST().findMST(GraphTestUtils.generateConnectedGraph(10, 0.5));
+        assertTrue(result.getExecutionTimeNanos() > 0);
+        assertEquals(result.getExecutionTimeNanos() / 1_000_000, result.getExecutionTime());
+    }
+
     @Test
     public void testResultsReproducible() {
         Graph graph = GraphTestUtils.generateConnectedGraph(25, 0.4);
@@ -151,4 +206,773 @@ public class MSTComprehensiveTest {
             assertTrue(GraphTestUtils.connectsAllVertices(primResult.getMstEdges(), graph.getVertices()));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompactGraphMatchesGraph() {
+        Graph graph = GraphTestUtils.generateConnectedGraph(30, 0.3);
+        CompactGraph compact = graph.getCompactGraph();
+
+        assertEquals(graph.getVertexCount(), compact.getVertexCount());
+        assertEquals(graph.getEdgeCount(), compact.getEdgeCount());
+        assertSame(compact, graph.getCompactGraph(), "Conversion should happen only once");
+
+        // Each undirected edge appears once in each endpoint's adjacency range
+        Map<String, List<Edge>> adjList = graph.getAdjacencyList();
+        int[] offsets = compact.getOffsets();
+        for (int v = 0; v < compact.getVertexCount(); v++) {
+            assertEquals(adjList.get(compact.getVertexName(v)).size(), offsets[v + 1] - offsets[v]);
+        }
+        assertEquals(2 * graph.getEdgeCount(), offsets[compact.getVertexCount()]);
+    }
+
+    @Test
+    public void testDisjointSetLongChain() {
+        // A long chain must not overflow the stack and must end up as one set
+        int size = 1_000_000;
+        DisjointSet ds = new DisjointSet(size);
+        for (int i = 1; i < size; i++) {
+            assertTrue(ds.union(i - 1, i));
+        }
+
+        assertEquals(1, ds.getSetCount());
+        assertEquals(size, ds.getSetSize(0));
+        assertTrue(ds.connected(0, size - 1));
+        assertFalse(ds.union(0, size - 1), "Union within one set should be rejected");
+
+        ds.reset(10);
+        assertEquals(10, ds.getSetCount());
+        assertFalse(ds.connected(0, 1));
+    }
+
+    @Test
+    public void testDisjointSetMatchesReferenceUnionFind() {
+        int size = 500;
+        DisjointSet ds = new DisjointSet(size);
+        GraphTestUtils.UnionFind reference = new GraphTestUtils.UnionFind(size);
+        int[] setSize = new int[size];
+        Arrays.fill(setSize, 1);
+        int sets = size;
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            int x = random.nextInt(size);
+            int y = random.nextInt(size);
+            assertEquals(reference.find(x) == reference.find(y), ds.connected(x, y));
+            int sizeX = setSize[reference.find(x)];
+            int sizeY = setSize[reference.find(y)];
+            boolean merged = reference.union(x, y);
+            assertEquals(merged, ds.union(x, y));
+            if (merged) {
+                sets--;
+                setSize[reference.find(x)] = sizeX + sizeY;
+            }
+            assertEquals(sets, ds.getSetCount());
+            assertEquals(setSize[reference.find(x)], ds.getSetSize(x));
+        }
+    }
+
+    @Test
+    public void testPrimHeapArityDoesNotChangeCost() {
+        Graph graph = GraphTestUtils.generateConnectedGraph(60, 0.6);
+        int expected = new KruskalMST().findMST(graph).getTotalCost();
+
+        for (int arity : new int[]{2, 4, 8}) {
+            MSTResult result = new PrimMST(arity).findMST(graph);
+            assertEquals(expected, result.getTotalCost(), "Prim cost with heap arity " + arity);
+            assertEquals(graph.getVertexCount() - 1, result.getMstEdges().size());
+        }
+    }
+
+    @Test
+    public void testDensePrimMatchesKruskal() {
+        for (double density : new double[]{0.1, 0.5, 0.9}) {
+            Graph graph = GraphTestUtils.generateConnectedGraph(40, density);
+            MSTResult dense = new DensePrimMST().findMST(graph);
+            MSTResult kruskal = new KruskalMST().findMST(graph);
+
+            assertEquals(kruskal.getTotalCost(), dense.getTotalCost(), "Dense Prim cost at density " + density);
+            assertTrue(GraphTestUtils.isAcyclic(dense.getMstEdges(), graph.getVertexCount()));
+            assertTrue(GraphTestUtils.connectsAllVertices(dense.getMstEdges(), graph.getVertices()));
+        }
+    }
+
+    @Test
+    public void testSelectorPicksEngineByDensity() {
+        MSTSelector selector = new MSTSelector(0.3, 4.0, 10);
+
+        assertEquals("DensePrim", selector.select(8, 7).getName(), "Small graphs use array Prim");
+        assertEquals("DensePrim", selector.select(100, 2000).getName(), "40% density is dense");
+        assertEquals("Kruskal", selector.select(1000, 1500).getName(), "Average degree 3 is sparse");
+        assertEquals("Prim", selector.select(1000, 20000).getName(), "Moderate density uses heap Prim");
+    }
+
+    @Test
+    public void testBoruvkaMatchesKruskal() {
+        // Large enough that the edge scan splits into several fork-join tasks
+        for (int vertices : new int[]{2, 50, 400}) {
+            Graph graph = GraphTestUtils.generateConnectedGraph(vertices, 0.2);
+            MSTResult boruvka = new BoruvkaMST().findMST(graph);
+            MSTResult kruskal = new KruskalMST().findMST(graph);
+
+            assertEquals(kruskal.getTotalCost(), boruvka.getTotalCost(), "Boruvka cost for " + vertices + " vertices");
+            assertEquals(vertices - 1, boruvka.getMstEdges().size());
+            assertTrue(GraphTestUtils.isAcyclic(boruvka.getMstEdges(), vertices));
+        }
+    }
+
+    @Test
+    public void testFilterKruskalSortsFewerEdges() {
+        // Weights spread far apart, since a narrow range is counting-sorted whole by either strategy
+        Graph graph = GraphTestUtils.withScaledWeights(GraphTestUtils.generateConnectedGraph(300, 0.5), 1_000_000);
+        MSTResult full = new KruskalMST(KruskalMST.SortStrategy.FULL).findMST(graph);
+        MSTResult filter = new KruskalMST(KruskalMST.SortStrategy.FILTER).findMST(graph);
+
+        assertEquals(full.getTotalCost(), filter.getTotalCost());
+        assertEquals(graph.getVertexCount() - 1, filter.getMstEdges().size());
+        assertTrue(GraphTestUtils.isAcyclic(filter.getMstEdges(), graph.getVertexCount()));
+
+        assertEquals(graph.getEdgeCount(), full.getStat(KruskalMST.STAT_EDGES_SORTED));
+        assertTrue(filter.getStat(KruskalMST.STAT_EDGES_SORTED) < graph.getEdgeCount() / 2,
+                "Filter-Kruskal should discard most heavy edges of a dense graph");
+        assertEquals(graph.getEdgeCount(), filter.getStat(KruskalMST.STAT_EDGES_SORTED)
+                + filter.getStat(KruskalMST.STAT_EDGES_DISCARDED));
+    }
+
+    @Test
+    public void testCountingSortUsedForSmallWeightRange() {
+        // Weights are 1..100, so a 40-vertex graph at 50% density has a narrow enough range
+        Graph narrow = GraphTestUtils.generateConnectedGraph(40, 0.5);
+        MSTResult counted = new KruskalMST().findMST(narrow);
+        assertEquals(1L, counted.getStat(KruskalMST.STAT_COUNTING_SORT));
+        assertEquals(new PrimMST().findMST(narrow).getTotalCost(), counted.getTotalCost());
+
+        // Spread weights far apart so the comparison sort is used instead
+        Graph wideGraph = GraphTestUtils.withScaledWeights(narrow, 1_000_000);
+        MSTResult compared = new KruskalMST().findMST(wideGraph);
+        assertEquals(0L, compared.getStat(KruskalMST.STAT_COUNTING_SORT));
+        assertEquals(counted.getTotalCost() * 1_000_000L, compared.getTotalCost());
+
+        // Main's batch engine is Filter-Kruskal, which takes the same linear sort
+        MSTResult filtered = new KruskalMST(KruskalMST.SortStrategy.FILTER).findMST(narrow);
+        assertEquals(1L, filtered.getStat(KruskalMST.STAT_COUNTING_SORT));
+        assertEquals(counted.getMstEdges().toString(), filtered.getMstEdges().toString());
+        Main.GraphOutcome outcome = Main.solveGraph("test", narrow.getCompactGraph(), 0);
+        assertTrue(outcome.log.contains("(counting sort)"), outcome.log);
+        assertEquals(counted.getTotalCost(), outcome.record.kruskalCost);
+    }
+
+    @Test
+    public void testParallelSortMatchesSequentialSort() {
+        // Wide weights keep the comparison sort, which a threshold of 2 always runs in parallel
+        Graph graph = GraphTestUtils.withScaledWeights(GraphTestUtils.generateConnectedGraph(300, 0.3), 1_000_000);
+
+        MSTResult sequential = new KruskalMST(KruskalMST.SortStrategy.FULL, Integer.MAX_VALUE).findMST(graph);
+        MSTResult parallel = new KruskalMST(KruskalMST.SortStrategy.FULL, 2).findMST(graph);
+
+        assertEquals(0L, sequential.getStat(KruskalMST.STAT_EDGES_PARALLEL_SORTED));
+        assertEquals(graph.getEdgeCount(), parallel.getStat(KruskalMST.STAT_EDGES_PARALLEL_SORTED));
+        assertEquals(sequential.getTotalCost(), parallel.getTotalCost());
+        assertEquals(sequential.getMstEdges().size(), parallel.getMstEdges().size());
+        for (int i = 0; i < sequential.getMstEdges().size(); i++) {
+            assertEquals(sequential.getMstEdges().get(i).getWeight(), parallel.getMstEdges().get(i).getWeight());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new KruskalMST(KruskalMST.SortStrategy.FULL, 1));
+    }
+
+    @Test
+    public void testStreamingReaderMatchesObjectReader(@TempDir Path dir) throws Exception {
+        // Second graph lists edges before nodes, which the reader must renumber
+        String json = "{\"graphs\": ["
+                + "{\"id\": 1, \"nodes\": [\"A\", \"B\", \"C\"], \"edges\": ["
+                + "{\"from\": \"A\", \"to\": \"B\", \"weight\": 2}, {\"from\": \"B\", \"to\": \"C\", \"weight\": 1}]},"
+                + "{\"edges\": [{\"from\": \"Y\", \"to\": \"X\", \"weight\": 5}], \"id\": 2, \"nodes\": [\"X\", \"Y\"]}"
+                + "]}";
+        File file = dir.resolve("graphs.json").toFile();
+        Files.writeString(file.toPath(), json);
+
+        List<Graph> expected = JsonUtils.convertToGraphs(JsonUtils.readInput(file.getPath()));
+        List<CompactGraph> streamed = new ArrayList<>();
+        try (GraphStreamReader reader = JsonUtils.streamGraphs(file.getPath())) {
+            reader.forEachRemaining(streamed::add);
+        }
+
+        assertEquals(expected.size(), streamed.size());
+        for (int g = 0; g < expected.size(); g++) {
+            CompactGraph a = expected.get(g).getCompactGraph();
+            CompactGraph b = streamed.get(g);
+            assertEquals(a.getId(), b.getId());
+            assertEquals(a.getVertexCount(), b.getVertexCount());
+            assertEquals(a.getEdgeCount(), b.getEdgeCount());
+            for (int v = 0; v < a.getVertexCount(); v++) {
+                assertEquals(a.getVertexName(v), b.getVertexName(v));
+            }
+            for (int e = 0; e < a.getEdgeCount(); e++) {
+                assertEquals(a.getEdgeFrom(e), b.getEdgeFrom(e));
+                assertEquals(a.getEdgeTo(e), b.getEdgeTo(e));
+                assertEquals(a.getEdgeWeight(e), b.getEdgeWeight(e));
+            }
+        }
+    }
+
+    @Test
+    public void testSymbolTableSharesNamesAcrossGraphs(@TempDir Path dir) throws Exception {
+        SymbolTable symbols = new SymbolTable(2);
+        char[] buffer = "xN42y".toCharArray();
+        int id = symbols.intern(buffer, 1, 3);
+        assertEquals(id, symbols.intern(new String("N42")));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i + 1, symbols.intern("V" + i), "Ids are dense and in first-seen order");
+        }
+        assertEquals(id, symbols.intern(buffer, 1, 3), "Lookups survive rehashing");
+        assertEquals("V999", symbols.getName(1000));
+        assertThrows(IndexOutOfBoundsException.class, () -> symbols.getName(1001));
+
+        // Both graphs mention A and B; a reader with a shared table keeps one String for each
+        String json = "{\"graphs\": ["
+                + "{\"id\": 1, \"nodes\": [\"A\", \"B\"], \"edges\": [{\"from\": \"A\", \"to\": \"B\", \"weight\": 1}]},"
+                + "{\"id\": 2, \"nodes\": [\"B\", \"C\", \"A\"], \"edges\": [{\"from\": \"A\", \"to\": \"C\", \"weight\": 3}]}"
+                + "]}";
+        File file = dir.resolve("graphs.json").toFile();
+        Files.writeString(file.toPath(), json);
+        try (GraphStreamReader reader = new GraphStreamReader(file, new SymbolTable())) {
+            CompactGraph first = reader.next();
+            CompactGraph second = reader.next();
+            assertSame(first.getVertexName(0), second.getVertexName(2));
+            assertSame(first.getVertexName(1), second.getVertexName(0));
+            assertEquals(2, second.getEdgeFrom(0));
+            assertEquals(1, second.getEdgeTo(0));
+            assertEquals(3, reader.getSymbols().size());
+        }
+
+        // The default reader keeps no names between graphs, so its memory is bounded per graph
+        try (GraphStreamReader reader = JsonUtils.streamGraphs(file.getPath())) {
+            assertNull(reader.getSymbols());
+            CompactGraph first = reader.next();
+            CompactGraph second = reader.next();
+            assertEquals(first.getVertexName(0), second.getVertexName(2));
+            assertNotSame(first.getVertexName(0), second.getVertexName(2));
+            assertEquals(2, second.getEdgeFrom(0));
+            assertEquals(1, second.getEdgeTo(0));
+        }
+
+        List<Graph> graphs = JsonUtils.convertToGraphs(JsonUtils.readInput(file.getPath()));
+        assertSame(graphs.get(0).getVertices().get(0), graphs.get(1).getEdges().get(0).getFrom());
+    }
+
+    @Test
+    public void testResultStreamWriterProducesOutputDataShape(@TempDir Path dir) throws Exception {
+        File file = dir.resolve("out.json").toFile();
+        MSTOutput output = new MSTOutput("Prim", List.of(new EdgeOutput("A", "B", 1)), 1, 3, 0.0);
+        try (ResultStreamWriter writer = new ResultStreamWriter(file, false)) {
+            writer.write(new GraphResult(1, new InputStats(2, 1), output, output, output, output));
+            writer.write(new GraphResult(2, new InputStats(2, 1), output, output, output, output));
+            assertEquals(2, writer.getCount());
+        }
+
+        JsonNode root = new ObjectMapper().readTree(file);
+        assertEquals(2, root.get("results").size());
+        assertEquals(2, root.get("results").get(1).get("graph_id").asInt());
+        assertEquals("Prim", root.get("results").get(0).get("prim").get("algorithm").asText());
+    }
+
+    @Test
+    public void testBinaryGraphFileRoundTrip(@TempDir Path dir) throws Exception {
+        List<CompactGraph> graphs = new ArrayList<>();
+        for (int id = 1; id <= 3; id++) {
+            Graph graph = GraphTestUtils.generateConnectedGraph(10 * id, 0.3);
+            graphs.add(new Graph(id * 10, graph.getVertices(), graph.getEdges()).getCompactGraph());
+        }
+
+        File file = dir.resolve("graphs" + BinaryGraphFile.EXTENSION).toFile();
+        try (BinaryGraphWriter writer = new BinaryGraphWriter(file)) {
+            for (CompactGraph graph : graphs) {
+                writer.write(graph);
+            }
+        }
+
+        try (BinaryGraphReader reader = new BinaryGraphReader(file)) {
+            assertEquals(3, reader.getGraphCount());
+
+            // Random access by id, out of file order
+            CompactGraph last = reader.readGraphById(30);
+            CompactGraph expected = graphs.get(2);
+            assertEquals(expected.getVertexCount(), last.getVertexCount());
+            assertEquals(expected.getEdgeCount(), last.getEdgeCount());
+            for (int v = 0; v < expected.getVertexCount(); v++) {
+                assertEquals(expected.getVertexName(v), last.getVertexName(v));
+            }
+            for (int e = 0; e < expected.getEdgeCount(); e++) {
+                assertEquals(expected.getEdgeFrom(e), last.getEdgeFrom(e));
+                assertEquals(expected.getEdgeTo(e), last.getEdgeTo(e));
+                assertEquals(expected.getEdgeWeight(e), last.getEdgeWeight(e));
+            }
+
+            // Sequential access yields the same MSTs
+            int position = 0;
+            while (reader.hasNext()) {
+                CompactGraph loaded = reader.next();
+                assertEquals(graphs.get(position).getId(), loaded.getId());
+                assertEquals(new KruskalMST().findMST(graphs.get(position)).getTotalCost(),
+                        new KruskalMST().findMST(loaded).getTotalCost());
+                position++;
+            }
+            assertEquals(3, position);
+        }
+    }
+
+    @Test
+    public void testBinaryGraphReaderRejectsCorruptVertexIds(@TempDir Path dir) throws Exception {
+        CompactGraph graph = GraphTestUtils.generateConnectedGraph(10, 0.3).getCompactGraph();
+        File file = dir.resolve("graph" + BinaryGraphFile.EXTENSION).toFile();
+        try (BinaryGraphWriter writer = new BinaryGraphWriter(file)) {
+            writer.write(graph);
+        }
+
+        // The block ends with the from, to and weight arrays, followed by a one-entry index;
+        // overwrite the first edge's "from" with a vertex id past the end
+        long fromOffset = file.length() - BinaryGraphFile.INDEX_ENTRY_BYTES - 12L * graph.getEdgeCount();
+        try (java.io.RandomAccessFile raw = new java.io.RandomAccessFile(file, "rw")) {
+            raw.seek(fromOffset);
+            raw.write(new byte[] {(byte) 0xE8, 0x03, 0, 0}); // 1000, little-endian
+        }
+
+        try (BinaryGraphReader reader = new BinaryGraphReader(file)) {
+            java.io.IOException failure = assertThrows(java.io.IOException.class, () -> reader.readGraph(0));
+            assertTrue(failure.getMessage().contains("1000"), failure.getMessage());
+            assertThrows(java.io.IOException.class, () -> reader.streamGraph(0).forEachEdge((u, v, w) -> { }));
+        }
+    }
+
+    @Test
+    public void testExternalKruskalMatchesInMemoryKruskal(@TempDir Path dir) throws Exception {
+        Graph graph = GraphTestUtils.generateConnectedGraph(60, 0.3);
+        CompactGraph compact = graph.getCompactGraph();
+        List<Edge> expected = new KruskalMST().findMST(compact).getMstEdges();
+
+        File file = dir.resolve("graph" + BinaryGraphFile.EXTENSION).toFile();
+        try (BinaryGraphWriter writer = new BinaryGraphWriter(file)) {
+            writer.write(compact);
+        }
+        File spill = Files.createDirectory(dir.resolve("spill")).toFile();
+
+        // Tiny runs and a fan-in of 2 force several spilled runs and intermediate merge passes
+        ExternalKruskalMST external = new ExternalKruskalMST(37, 2, spill);
+        try (BinaryGraphReader reader = new BinaryGraphReader(file)) {
+            MSTResult result = external.findMST(reader.streamGraph(0));
+            assertEquals(expected.size(), result.getMstEdges().size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getFrom(), result.getMstEdges().get(i).getFrom());
+                assertEquals(expected.get(i).getTo(), result.getMstEdges().get(i).getTo());
+                assertEquals(expected.get(i).getWeight(), result.getMstEdges().get(i).getWeight());
+            }
+            long runs = (compact.getEdgeCount() + 36) / 37;
+            assertEquals(runs, result.getStat(ExternalKruskalMST.STAT_RUNS));
+            assertTrue(result.getStat(ExternalKruskalMST.STAT_MERGE_PASSES) > 1);
+            assertTrue(result.getStat(ExternalKruskalMST.STAT_BYTES_SPILLED) >= 12L * compact.getEdgeCount());
+            // Merging stops once the tree is complete
+            assertTrue(result.getStat(ExternalKruskalMST.STAT_EDGES_SCANNED) < compact.getEdgeCount());
+        }
+        assertEquals(0, spill.list().length, "Spilled runs should be deleted");
+
+        // A graph that fits in one run is solved without spilling
+        MSTResult inMemory = new ExternalKruskalMST().findMST(compact);
+        assertEquals(0, inMemory.getStat(ExternalKruskalMST.STAT_BYTES_SPILLED));
+        assertEquals(0, inMemory.getStat(ExternalKruskalMST.STAT_MERGE_PASSES));
+        assertEquals(new KruskalMST().findMST(compact).getTotalCost(), inMemory.getTotalCost());
+    }
+
+    @Test
+    public void testOffHeapEdgeStoreMatchesHeapEngines(@TempDir Path dir) throws Exception {
+        CompactGraph graph = GraphTestUtils.generateConnectedGraph(50, 0.3).getCompactGraph();
+        MSTResult expected = new PrimMST().findMST(graph);
+
+        for (OffHeapEdgeStore.Backing backing : OffHeapEdgeStore.Backing.values()) {
+            String[] names = new String[graph.getVertexCount()];
+            for (int v = 0; v < names.length; v++) {
+                names[v] = graph.getVertexName(v);
+            }
+            // 16-int segments, so edges and adjacency both straddle many segment boundaries
+            OffHeapEdgeStore store = new OffHeapEdgeStore(graph.getId(), names, graph.getEdgeCount(),
+                    backing, dir.toFile(), 4);
+            try {
+                EdgeStream.of(graph).forEachEdge(store::append);
+                assertEquals(graph.getEdgeCount(), store.getEdgeCount());
+                assertEquals(graph.getEdgeWeight(graph.getEdgeCount() - 1), store.getEdgeWeight(graph.getEdgeCount() - 1));
+                assertThrows(IllegalStateException.class, () -> store.append(0, 1, 1));
+
+                MSTResult prim = new PrimMST().findMST(store);
+                assertEquals(expected.getTotalCost(), prim.getTotalCost());
+                assertEquals(expected.getMstEdges().size(), prim.getMstEdges().size());
+                for (int i = 0; i < expected.getMstEdges().size(); i++) {
+                    assertEquals(expected.getMstEdges().get(i).getTo(), prim.getMstEdges().get(i).getTo());
+                    assertEquals(expected.getMstEdges().get(i).getWeight(), prim.getMstEdges().get(i).getWeight());
+                }
+                assertEquals(expected.getTotalCost(), new ExternalKruskalMST(64, 4, dir.toFile()).findMST(store).getTotalCost());
+            } finally {
+                store.close();
+            }
+            assertThrows(IllegalStateException.class, () -> store.forEachEdge((from, to, weight) -> { }));
+            assertThrows(IllegalStateException.class, () -> store.getEdgeWeight(0));
+            assertThrows(IllegalStateException.class, () -> store.getAdjacentVertex(0));
+        }
+        assertEquals(0, dir.toFile().list().length, "Backing and spill files should be deleted");
+    }
+
+    @Test
+    public void testResultCacheFingerprintEvictionAndPersistence(@TempDir Path dir) throws Exception {
+        // Same content under another id shares a fingerprint; reordered or reweighted content does not,
+        // since Prim's tree among equal-cost ones depends on vertex order
+        CompactGraph graph = new CompactGraph(1, new String[]{"A", "B", "C"},
+                new int[]{0, 1, 0}, new int[]{1, 2, 2}, new int[]{4, 2, 7});
+        CompactGraph renamed = new CompactGraph(9, new String[]{"A", "B", "C"},
+                new int[]{0, 1, 0}, new int[]{1, 2, 2}, new int[]{4, 2, 7});
+        CompactGraph reordered = new CompactGraph(1, new String[]{"C", "B", "A"},
+                new int[]{0, 0, 1}, new int[]{2, 1, 2}, new int[]{7, 2, 4});
+        CompactGraph reweighted = new CompactGraph(1, new String[]{"A", "B", "C"},
+                new int[]{0, 1, 0}, new int[]{1, 2, 2}, new int[]{4, 2, 8});
+        String key = MSTResultCache.fingerprint(graph);
+        assertEquals(key, MSTResultCache.fingerprint(renamed));
+        assertNotEquals(key, MSTResultCache.fingerprint(reordered));
+        assertNotEquals(key, MSTResultCache.fingerprint(reweighted));
+
+        // Each result counts 1 + its 2 edges, so a capacity of 6 holds two of them
+        MSTResultCache cache = new MSTResultCache(6, dir.toFile());
+        PrimMST primEngine = new PrimMST();
+        KruskalMST full = new KruskalMST(KruskalMST.SortStrategy.FULL);
+        KruskalMST filter = new KruskalMST(KruskalMST.SortStrategy.FILTER);
+        MSTResult prim = primEngine.findMST(graph);
+        cache.put(key, primEngine, prim);
+        cache.put(key, full, full.findMST(graph));
+        assertSame(prim, cache.get(key, primEngine));
+        assertNull(cache.get(key, filter), "Engine settings are part of the key");
+        cache.put(key, new BoruvkaMST(), new BoruvkaMST().findMST(graph));
+        assertEquals(1, cache.getEvictions(), "Kruskal was least recently used");
+        assertEquals(2, cache.getEntryCount());
+        assertNull(cache.get(MSTResultCache.fingerprint(reweighted), primEngine));
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        // The evicted result, and everything in a new cache, is read back from the directory
+        MSTResult kruskal = cache.get(key, full);
+        assertEquals(1, cache.getDiskHits());
+        assertEquals(6, kruskal.getTotalCost());
+        MSTResult reloaded = new MSTResultCache(0, dir.toFile()).get(MSTResultCache.fingerprint(renamed), primEngine);
+        assertEquals(prim.getTotalCost(), reloaded.getTotalCost());
+        assertEquals(prim.getOperationsCount(), reloaded.getOperationsCount());
+        assertEquals(prim.getExecutionTimeNanos(), reloaded.getExecutionTimeNanos());
+        assertEquals(prim.getStats(), reloaded.getStats());
+        assertEquals(prim.getMstEdges().toString(), reloaded.getMstEdges().toString());
+
+        // A directory that can no longer be written to only costs the persisted copy
+        File gone = dir.resolve("gone").toFile();
+        MSTResultCache unwritable = new MSTResultCache(100, gone);
+        Files.delete(gone.toPath());
+        Files.writeString(gone.toPath(), "not a directory");
+        unwritable.put(key, primEngine, prim);
+        assertEquals(1, unwritable.getWriteFailures());
+        assertSame(prim, unwritable.get(key, primEngine));
+    }
+
+    @Test
+    public void testSharedSolversAndScratchReuse() throws Exception {
+        List<MSTAlgorithm> engines = List.of(new PrimMST(), new DensePrimMST(),
+                new KruskalMST(KruskalMST.SortStrategy.FULL), new KruskalMST(KruskalMST.SortStrategy.FILTER),
+                new BoruvkaMST());
+        Graph large = GraphTestUtils.generateConnectedGraph(200, 0.3);
+        Graph small = GraphTestUtils.generateConnectedGraph(12, 0.5);
+        int largeCost = new KruskalMST().findMST(large).getTotalCost();
+        int smallCost = new KruskalMST().findMST(small).getTotalCost();
+
+        // One scratch reused across sizes must not leak state between solves
+        MSTScratch scratch = new MSTScratch();
+        for (MSTAlgorithm engine : engines) {
+            assertEquals(largeCost, engine.findMST(large.getCompactGraph(), scratch).getTotalCost(), engine.getName());
+            assertEquals(smallCost, engine.findMST(small.getCompactGraph(), scratch).getTotalCost(), engine.getName());
+            assertEquals(largeCost, engine.findMST(large.getCompactGraph(), scratch).getTotalCost(), engine.getName());
+        }
+
+        // The same engine instances shared by several threads
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int task = 0; task < 16; task++) {
+                futures.add(pool.submit(() -> {
+                    for (MSTAlgorithm engine : engines) {
+                        if (engine.findMST(large).getTotalCost() != largeCost) return false;
+                        if (engine.findMST(small).getTotalCost() != smallCost) return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testServerAnswersInRequestOrder() throws Exception {
+        String requests = String.join("\n",
+                "{\"id\": 7, \"nodes\": [\"A\", \"B\", \"C\"], \"edges\": ["
+                        + "{\"from\": \"A\", \"to\": \"B\", \"weight\": 4},"
+                        + "{\"from\": \"B\", \"to\": \"C\", \"weight\": 1},"
+                        + "{\"from\": \"A\", \"to\": \"C\", \"weight\": 2}]}",
+                "",
+                "{\"id\": 8, \"nodes\": [\"A\"], \"edges\": [{\"from\": \"A\", \"to\": \"Z\", \"weight\": 1}]}",
+                "{\"id\": 9, \"nodes\": [\"X\", \"Y\"], \"edges\": [{\"from\": \"X\", \"to\": \"Y\", \"weight\": 5}]}");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MSTServer server = new MSTServer(new MSTSelector(), 3)) {
+            server.serve(new ByteArrayInputStream(requests.getBytes(StandardCharsets.UTF_8)), out);
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode first = mapper.readTree(lines[0]);
+        assertEquals(7, first.get("graph_id").asInt());
+        assertEquals(3, first.get("total_cost").asInt());
+        assertEquals(2, first.get("mst_edges").size());
+        assertTrue(first.has("algorithm"));
+        assertTrue(mapper.readTree(lines[1]).has("error"), "Unknown vertex should be reported, not fatal");
+        assertEquals(5, mapper.readTree(lines[2]).get("total_cost").asInt());
+    }
+
+    @Test
+    public void testServerKeepsAnsweringAfterRequestError() throws Exception {
+        // More requests than the queue holds follow the failing one, so a dead responder would hang the reader
+        String valid = "{\"id\": 1, \"nodes\": [\"X\", \"Y\"], \"edges\": [{\"from\": \"X\", \"to\": \"Y\", \"weight\": 5}]}";
+        List<String> requests = new ArrayList<>(List.of("boom"));
+        for (int i = 0; i < 10; i++) {
+            requests.add(valid);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MSTServer server = new MSTServer(new MSTSelector(), 1) {
+            @Override
+            String handle(String request) {
+                if (request.equals("boom")) throw new StackOverflowError();
+                return super.handle(request);
+            }
+        }) {
+            byte[] input = String.join("\n", requests).getBytes(StandardCharsets.UTF_8);
+            assertTimeoutPreemptively(java.time.Duration.ofSeconds(10),
+                    () -> server.serve(new ByteArrayInputStream(input), out));
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(11, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        assertEquals("java.lang.StackOverflowError", mapper.readTree(lines[0]).get("error").asText());
+        assertEquals(5, mapper.readTree(lines[10]).get("total_cost").asInt());
+    }
+
+    @Test
+    public void testServerStopsResponderWhenReadFails() throws Exception {
+        // One request, then the connection resets
+        byte[] request = "{\"id\": 1, \"nodes\": [\"X\", \"Y\"], \"edges\": [{\"from\": \"X\", \"to\": \"Y\", \"weight\": 5}]}\n"
+                .getBytes(StandardCharsets.UTF_8);
+        java.io.InputStream in = new java.io.InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws java.io.IOException {
+                if (position == request.length) throw new java.io.IOException("Connection reset");
+                return request[position++];
+            }
+        };
+        try (MSTServer server = new MSTServer(new MSTSelector(), 1)) {
+            java.io.IOException failure = assertThrows(java.io.IOException.class,
+                    () -> server.serve(in, new ByteArrayOutputStream()));
+            assertEquals("Connection reset", failure.getMessage());
+
+            // Checked before close, whose shutdownNow would interrupt a leaked responder anyway
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (isResponding() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertFalse(isResponding(), "Responder still waiting after the read failed");
+        }
+    }
+
+    // True while some thread is inside MSTServer.respond
+    private static boolean isResponding() {
+        return Thread.getAllStackTraces().values().stream()
+                .flatMap(Arrays::stream)
+                .anyMatch(frame -> frame.getClassName().equals("MSTServer") && frame.getMethodName().equals("respond"));
+    }
+
+    @Test
+    public void testDynamicMSTMatchesRecompute() {
+        Graph graph = GraphTestUtils.generateConnectedGraph(60, 0.15);
+        DynamicMST dynamic = new DynamicMST(graph);
+        assertEquals(new KruskalMST().findMST(graph).getTotalCost(), dynamic.getTotalCost());
+
+        // Random inserts, deletes and weight changes, each checked against a full recompute
+        Random random = new Random(15);
+        List<String> vertices = graph.getVertices();
+        int previousCost = dynamic.getTotalCost();
+        long updateNanos = 0;
+        for (int step = 0; step < 300; step++) {
+            List<Edge> edges = dynamic.toGraph().getEdges();
+            int op = random.nextInt(3);
+            MSTUpdate update;
+            if (op == 0 || edges.isEmpty()) {
+                update = dynamic.insertEdge(vertices.get(random.nextInt(vertices.size())),
+                        vertices.get(random.nextInt(vertices.size())), random.nextInt(100) + 1);
+            } else {
+                Edge edge = edges.get(random.nextInt(edges.size()));
+                update = op == 1
+                        ? dynamic.deleteEdge(edge.getFrom(), edge.getTo())
+                        : dynamic.changeWeight(edge.getFrom(), edge.getTo(), random.nextInt(100) + 1);
+            }
+
+            MSTResult expected = new KruskalMST().findMST(dynamic.toGraph());
+            assertEquals(expected.getTotalCost(), update.getTotalCost(), "step " + step);
+            assertEquals(expected.getMstEdges().size(), dynamic.getTreeEdgeCount(), "step " + step);
+            assertTrue(GraphTestUtils.isAcyclic(dynamic.getResult().getMstEdges(), vertices.size()), "step " + step);
+
+            // The reported changes account exactly for the cost difference
+            int delta = update.getAddedEdges().stream().mapToInt(Edge::getWeight).sum()
+                    - update.getRemovedEdges().stream().mapToInt(Edge::getWeight).sum();
+            assertEquals(previousCost + delta, update.getTotalCost(), "step " + step);
+            assertTrue(update.getAddedEdges().size() <= 1 && update.getRemovedEdges().size() <= 1);
+            assertTrue(update.getExecutionTimeNanos() > 0);
+            assertEquals(update.getExecutionTimeNanos() / 1_000_000, update.getExecutionTime());
+            updateNanos += update.getExecutionTimeNanos();
+            previousCost = update.getTotalCost();
+        }
+
+        // The result's time covers the build and every update
+        MSTResult result = dynamic.getResult();
+        assertTrue(result.getExecutionTimeNanos() > updateNanos);
+        assertTrue(result.getOperationsCount() > 0);
+        assertEquals(300L, result.getStats().get(DynamicMST.STAT_UPDATES));
+        assertEquals((long) dynamic.getComponentCount(), result.getStats().get(SpanningForest.STAT_COMPONENTS));
+
+        assertThrows(IllegalArgumentException.class, () -> dynamic.insertEdge("missing", vertices.get(0), 1));
+    }
+
+    @Test
+    public void testSpanningForestOnDisconnectedGraph() {
+        // Three dense components (enough edges for the parallel path) plus one isolated vertex
+        List<String> vertices = new ArrayList<>();
+        List<Edge> edges = new ArrayList<>();
+        int expectedCost = 0;
+        for (int c = 0; c < 3; c++) {
+            Graph part = GraphTestUtils.generateConnectedGraph(100, 0.4);
+            String prefix = "C" + c + "_";
+            part.getVertices().forEach(v -> vertices.add(prefix + v));
+            part.getEdges().forEach(e -> edges.add(new Edge(prefix + e.getFrom(), prefix + e.getTo(), e.getWeight())));
+            expectedCost += new KruskalMST().findMST(part).getTotalCost();
+        }
+        vertices.add("lonely");
+        Graph graph = new Graph(5, vertices, edges);
+
+        MSTResult result = new SpanningForest(new MSTSelector()).findMST(graph);
+        assertEquals(expectedCost, result.getTotalCost());
+        assertEquals(new KruskalMST().findMST(graph).getTotalCost(), result.getTotalCost());
+        assertEquals(4, result.getStat(SpanningForest.STAT_COMPONENTS));
+        assertEquals(vertices.size() - 4, result.getMstEdges().size());
+
+        List<MSTComponent> components = result.getComponents();
+        assertEquals(4, components.size());
+        for (int c = 0; c < 3; c++) {
+            assertEquals(c, components.get(c).getComponentId());
+            assertEquals(100, components.get(c).getVertexCount());
+            assertEquals(99, components.get(c).getMstEdges().size());
+            String prefix = "C" + c + "_";
+            assertTrue(components.get(c).getMstEdges().stream().allMatch(e -> e.getFrom().startsWith(prefix)));
+        }
+        assertEquals(1, components.get(3).getVertexCount());
+        assertTrue(components.get(3).getMstEdges().isEmpty());
+        assertEquals(result.getTotalCost(), components.stream().mapToInt(MSTComponent::getTotalCost).sum());
+
+        // A connected graph is a single component solved by the selected engine
+        Graph connected = GraphTestUtils.generateConnectedGraph(30, 0.2);
+        MSTResult single = new SpanningForest(new MSTSelector()).findMST(connected);
+        assertEquals(1, single.getComponents().size());
+        assertEquals(new KruskalMST().findMST(connected).getTotalCost(), single.getTotalCost());
+    }
+
+    @Test
+    public void testSolveGraphOnDisconnectedGraphReportsNoMismatch() {
+        // Vertex 0 is in the smaller component, so Prim on its own would span only that one
+        CompactGraph graph = new CompactGraph(3, new String[]{"A", "B", "C", "D", "E"},
+                new int[]{0, 2, 3, 2}, new int[]{1, 3, 4, 4}, new int[]{5, 1, 2, 9});
+        Main.GraphOutcome outcome = Main.solveGraph("test", graph, 0);
+
+        assertEquals("", outcome.errors);
+        assertTrue(outcome.log.contains("Algorithms agree"));
+        assertEquals(8, outcome.record.primCost);
+        assertEquals(8, outcome.record.kruskalCost);
+        assertEquals(8, outcome.record.boruvkaCost);
+        assertEquals(3, outcome.result.getPrim().getMst_edges().size());
+    }
+
+    @Test
+    public void testGeneratorIsReproducibleAcrossThreads() {
+        // Bitset partitions, a complete graph (complement sampling) and hashed sparse partitions
+        int[][] shapes = {{2000, 300_000}, {300, 300 * 299 / 2}, {100_000, 400_000}};
+        for (int[] shape : shapes) {
+            int vertices = shape[0];
+            GeneratedGraph single = GraphGenerator.generate(1, vertices, shape[1], 100, 7, 1);
+            GeneratedGraph parallel = GraphGenerator.generate(1, vertices, shape[1], 100, 7, 4);
+            assertArrayEquals(single.getEdgeFrom(), parallel.getEdgeFrom());
+            assertArrayEquals(single.getEdgeTo(), parallel.getEdgeTo());
+            assertArrayEquals(single.getEdgeWeight(), parallel.getEdgeWeight());
+            assertEquals(shape[1], single.getEdgeCount());
+
+            // Distinct pairs, no self loops, and connected
+            LongHashSet pairs = new LongHashSet(single.getEdgeCount());
+            GraphTestUtils.UnionFind uf = new GraphTestUtils.UnionFind(vertices);
+            int sets = vertices;
+            for (int e = 0; e < single.getEdgeCount(); e++) {
+                int u = Math.min(single.getEdgeFrom()[e], single.getEdgeTo()[e]);
+                int v = Math.max(single.getEdgeFrom()[e], single.getEdgeTo()[e]);
+                assertTrue(u < v);
+                assertTrue(pairs.add((long) u * vertices + v), "duplicate edge " + u + "-" + v);
+                if (uf.union(u, v)) sets--;
+            }
+            assertEquals(1, sets);
+        }
+    }
+
+    @Test
+    public void testGraphFamiliesAreConnectedAndSimple() {
+        for (GraphGenerator.Family family : GraphGenerator.Family.values()) {
+            for (GraphGenerator.WeightDistribution weights : GraphGenerator.WeightDistribution.values()) {
+                int vertices = 400;
+                GeneratedGraph generated = GraphGenerator.generate(family, 1, vertices, 1200, 3, weights, 100, 11, 1);
+                String label = family + "/" + weights;
+
+                LongHashSet pairs = new LongHashSet(generated.getEdgeCount());
+                GraphTestUtils.UnionFind uf = new GraphTestUtils.UnionFind(vertices);
+                int sets = vertices;
+                Set<Integer> distinctWeights = new HashSet<>();
+                for (int e = 0; e < generated.getEdgeCount(); e++) {
+                    int u = Math.min(generated.getEdgeFrom()[e], generated.getEdgeTo()[e]);
+                    int v = Math.max(generated.getEdgeFrom()[e], generated.getEdgeTo()[e]);
+                    assertTrue(u < v, label + " self loop");
+                    assertTrue(pairs.add((long) u * vertices + v), label + " duplicate edge");
+                    if (uf.union(u, v)) sets--;
+                    assertTrue(generated.getEdgeWeight()[e] >= 1, label + " weight below 1");
+                    distinctWeights.add(generated.getEdgeWeight()[e]);
+                }
+                assertEquals(1, sets, label + " not connected");
+                if (family != GraphGenerator.Family.GEOMETRIC && weights == GraphGenerator.WeightDistribution.TIES) {
+                    assertTrue(distinctWeights.size() <= GraphGenerator.TIE_LEVELS, label);
+                }
+
+                CompactGraph graph = generated.toCompactGraph();
+                int expected = new KruskalMST().findMST(graph).getTotalCost();
+                assertEquals(expected, new PrimMST().findMST(graph).getTotalCost(), label);
+                assertEquals(expected, new BoruvkaMST().findMST(graph).getTotalCost(), label);
+            }
+        }
+
+        // Exact sizes where the family fixes them: 20x20 grid, K_30, and 3 links per vertex after a K_4 core
+        assertEquals(2 * 20 * 19, GraphGenerator.generateGrid(1, 400, GraphGenerator.WeightDistribution.UNIFORM, 100, 1).getEdgeCount());
+        assertEquals(30 * 29 / 2, GraphGenerator.generateComplete(1, 30, GraphGenerator.WeightDistribution.UNIFORM, 100, 1).getEdgeCount());
+        assertEquals(6 + (400 - 4) * 3, GraphGenerator.generatePowerLaw(1, 400, 3, GraphGenerator.WeightDistribution.UNIFORM, 100, 1).getEdgeCount());
+    }
+}